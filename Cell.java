@@ -13,6 +13,12 @@ public interface Cell {
    */
   void tearDownWall(Direction d);
 
+  /**
+   * Build the wall in this cell at direction d again.
+   * @param d one value in {@code Direction} enum class.
+   */
+  void buildWall(Direction d);
+
   /**
    * Set whether this cell has gold coin or not.
    * @param b true if this cell contains a gold coin, false if the gold coin is removed from this cell.
@@ -35,6 +41,13 @@ public interface Cell {
    */
   List<Direction> findNoWallDirection();
 
+  /**
+   * Check whether a wall stands at direction d. Unlike {@code findNoWallDirection}, no list is allocated.
+   * @param d one value in {@code Direction} enum class.
+   * @return true if a wall stands at direction d, otherwise false.
+   */
+  boolean hasWall(Direction d);
+
   /**
    * Get whether this cell contains a goal coin or not.
    * @return true if it has one, otherwise false.
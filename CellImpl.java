@@ -19,7 +19,7 @@ public final class CellImpl implements Cell{
   public CellImpl(int ID, int numOfCols) {
     this.ID = ID;
     this.cellLocation = MazeHelper.IDToLocation(ID, numOfCols);
-    this.walls = new HashMap<>();
+    this.walls = new EnumMap<>(Direction.class);
     initializeWalls();
     this.hasGoldCoin = false;
     this.hasThief = false;
@@ -31,6 +31,11 @@ public final class CellImpl implements Cell{
     this.walls.replace(d, false);
   }
 
+  @Override
+  public void buildWall(Direction d) {
+    this.walls.replace(d, true);
+  }
+
   @Override
   public void setHasGoldCoin(boolean b) {
     if(b && this.hasThief) {
@@ -59,6 +64,11 @@ public final class CellImpl implements Cell{
     return dList;
   }
 
+  @Override
+  public boolean hasWall(Direction d) {
+    return this.walls.get(d);
+  }
+
   @Override
   public boolean getHasGoldCoin() {
     return this.hasGoldCoin;
@@ -0,0 +1,134 @@
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * The {@code ConcurrentKruskal} class builds a random spanning tree of the grid on all cores at once. The edge list is
+ * shuffled from the seed and cut into disjoint slices, and each slice is run through Kruskal on its own thread against
+ * one shared union-find. The union-find is lock-free: parent links are kept in an atomic array, a root is only linked
+ * by a compare-and-set which checks it is still a root, and finds split their paths with compare-and-sets too. Roots
+ * are always linked under a root of higher random priority, which keeps the trees shallow and rules out a cycle of
+ * links even between racing unions. So every successful union merges two distinct sets, and exactly
+ * numOfCells - 1 edges are kept, wherever the threads interleave.
+ *
+ * Only the edges are chosen here. The caller tears down their walls after the join, since the cells are not
+ * thread-safe.
+ */
+public final class ConcurrentKruskal {
+	private static final int MIN_SLICE_SIZE = 1 << 14; // number of edges below which a slice is not worth a thread.
+
+	private final AtomicIntegerArray parent;
+	private final int[] priority;
+
+	private ConcurrentKruskal(int numOfCells, long seed) {
+		this.parent = new AtomicIntegerArray(numOfCells);
+		this.priority = new int[numOfCells];
+		for (int ID = 0; ID < numOfCells; ID++) {
+			parent.set(ID, ID);
+			priority[ID] = mix(seed + ID);
+		}
+	}
+
+	/**
+	 * Choose the edges of a random spanning tree.
+	 * @param numOfCells number of cells of the grid.
+	 * @param sources the source cell ID of each edge.
+	 * @param dests the destination cell ID of each edge.
+	 * @param seed seed of the shuffle of the edges and the priorities of the cells.
+	 * @return an array indexed like the edges, true for the edges of the tree. If the edges connect the grid, exactly
+	 * numOfCells - 1 of them are true.
+	 * @throws IllegalArgumentException if the arrays have different lengths.
+	 */
+	public static boolean[] spanningTree(int numOfCells, int[] sources, int[] dests, long seed) {
+		if (sources.length != dests.length) {
+			throw new IllegalArgumentException("Every edge needs one source and one destination.\n");
+		}
+		int numOfEdges = sources.length;
+		Random random = new Random(seed);
+		int[] order = new int[numOfEdges];
+		for (int k = 0; k < numOfEdges; k++) {
+			order[k] = k;
+		}
+		for (int k = numOfEdges - 1; k > 0; k--) {
+			int other = random.nextInt(k + 1);
+			int swap = order[k];
+			order[k] = order[other];
+			order[other] = swap;
+		}
+
+		ConcurrentKruskal unionFind = new ConcurrentKruskal(numOfCells, random.nextLong());
+		boolean[] isTreeEdge = new boolean[numOfEdges];
+		int numOfSlices = Math.max(1, Math.min(4 * ForkJoinPool.getCommonPoolParallelism(),
+				numOfEdges / MIN_SLICE_SIZE));
+		// Each edge belongs to exactly one slice, so isTreeEdge is never written by two threads.
+		IntStream.range(0, numOfSlices).parallel().forEach(s -> {
+			int to = (int) ((long) (s + 1) * numOfEdges / numOfSlices);
+			for (int k = (int) ((long) s * numOfEdges / numOfSlices); k < to; k++) {
+				int e = order[k];
+				isTreeEdge[e] = unionFind.union(sources[e], dests[e]);
+			}
+		});
+		return isTreeEdge;
+	}
+
+	/**
+	 * Join the sets of two cells.
+	 * @param ID the ID of a cell.
+	 * @param otherID the ID of another cell.
+	 * @return true if this call merged two distinct sets, false if the cells were already in the same set.
+	 */
+	private boolean union(int ID, int otherID) {
+		while (true) {
+			int root = find(ID);
+			int otherRoot = find(otherID);
+			if (root == otherRoot) {
+				return false;
+			}
+			// Link the root of lower priority. The link fails if that root has been linked meanwhile, then retry.
+			if (precedes(root, otherRoot)) {
+				if (parent.compareAndSet(root, root, otherRoot)) {
+					return true;
+				}
+			} else if (parent.compareAndSet(otherRoot, otherRoot, root)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Find the root of the set of a cell, pointing every other cell on the way to its grandparent.
+	 * @param ID the ID of a cell.
+	 * @return the ID of the root.
+	 */
+	private int find(int ID) {
+		while (true) {
+			int up = parent.get(ID);
+			if (up == ID) {
+				return ID;
+			}
+			int grandparent = parent.get(up);
+			if (grandparent != up) {
+				// A failed split only means another thread moved the link first, further up.
+				parent.compareAndSet(ID, up, grandparent);
+			}
+			ID = up;
+		}
+	}
+
+	/**
+	 * Order the cells by priority, then by ID. Links always go up this order, so they never form a cycle.
+	 */
+	private boolean precedes(int ID, int otherID) {
+		return priority[ID] < priority[otherID] || (priority[ID] == priority[otherID] && ID < otherID);
+	}
+
+	/**
+	 * Spread the bits of a value, the finalizer of SplitMix64.
+	 */
+	private static int mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return (int) (z ^ (z >>> 31));
+	}
+}
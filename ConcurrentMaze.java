@@ -0,0 +1,160 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The {@code ConcurrentMaze} class represents one maze layout shared by many agents which move at the same time, each
+ * on its own thread. The walls and thieves are read from an immutable {@code MazeLayout}, so agents read them without
+ * any lock. The gold coins are a bitset in an {@code AtomicLongArray}: picking up a coin is a CAS which clears its
+ * bit, so exactly one agent gets each coin. There is no global lock.
+ */
+public final class ConcurrentMaze {
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final MazeLayout layout;
+	private final int startID;
+	private final int goalID;
+	private final AtomicLongArray goldBits;
+
+	/**
+	 * Constructs a {@code ConcurrentMaze} object from the current walls and items of a maze. The maze is only read.
+	 *
+	 * @param maze the maze to share between agents.
+	 */
+	public ConcurrentMaze(GeneralMaze maze) {
+		this(new MazeLayout(maze));
+	}
+
+	/**
+	 * Constructs a {@code ConcurrentMaze} object on a shared layout, with every initial gold coin in place.
+	 *
+	 * @param layout the layout to share between agents.
+	 */
+	public ConcurrentMaze(MazeLayout layout) {
+		this.layout = layout;
+		this.startID = layout.getStartCellID();
+		this.goalID = layout.getGoalCellID();
+		this.goldBits = new AtomicLongArray((layout.getNumOfCells() + 63) >>> 6);
+		for (int ID : layout.getInitialGoldCoinCellIDs()) {
+			goldBits.getAndAccumulate(ID >>> 6, 1L << ID, (a, b) -> a | b);
+		}
+	}
+
+	/**
+	 * Create a new agent standing on the starting point with 0 gold coins.
+	 * @return a new {@code Agent}.
+	 */
+	public Agent newAgent() {
+		return new Agent();
+	}
+
+	/**
+	 * Claim the gold coin in the cell. Safe to call from any thread.
+	 * @param ID the ID of the cell.
+	 * @return true if the caller got the coin, false if the cell has no coin or another agent got it first.
+	 */
+	public boolean claimGold(int ID) {
+		int word = ID >>> 6;
+		long bit = 1L << ID;
+		long current = goldBits.get(word);
+		while ((current & bit) != 0) {
+			long witness = goldBits.compareAndExchange(word, current, current & ~bit);
+			if (witness == current) {
+				return true;
+			}
+			current = witness;
+		}
+		return false;
+	}
+
+	/**
+	 * Check whether the cell still contains a gold coin.
+	 * @param ID the ID of the cell.
+	 * @return true if it has one, otherwise false.
+	 */
+	public boolean hasGoldCoin(int ID) {
+		return (goldBits.get(ID >>> 6) & (1L << ID)) != 0;
+	}
+
+	/**
+	 * Count the gold coins which are not claimed yet.
+	 * @return number of remaining gold coins.
+	 */
+	public int countRemainingGold() {
+		int count = 0;
+		for (int w = 0; w < goldBits.length(); w++) {
+			count += Long.bitCount(goldBits.get(w));
+		}
+		return count;
+	}
+
+	public MazeLayout getLayout() {
+		return this.layout;
+	}
+
+	/**
+	 * The {@code Agent} class represents one player in the shared maze. Its position and gold are plain fields: an
+	 * agent must be confined to one thread, only the gold bitset of the maze is shared.
+	 */
+	public final class Agent {
+		private int cellID;
+		private int gold;
+
+		private Agent() {
+			this.cellID = startID;
+			this.gold = 0;
+		}
+
+		/**
+		 * Try to move the agent one step, with the same gold coin and thief rules as {@code PlayerImpl}.
+		 * @param d the {@code Direction} to move to.
+		 * @return one of the {@code MoveStatus} codes.
+		 */
+		public int tryMove(Direction d) {
+			if (cellID == goalID) {
+				return MoveStatus.GAME_OVER;
+			}
+			int nextID = layout.nextCellID(cellID, d);
+			if (nextID < 0) {
+				return MoveStatus.BLOCKED;
+			}
+			cellID = nextID;
+			if (claimGold(nextID)) {
+				gold++;
+			} else if (layout.hasThief(nextID)) {
+				gold = MazeHelper.goldAfterThiefEncounter(gold);
+			}
+			return MoveStatus.MOVED;
+		}
+
+		/**
+		 * Apply a whole route of moves, stopping at the first step which is blocked or comes after the goal.
+		 * @param route the ordinal of the {@code Direction} of each step.
+		 * @return the number of applied steps.
+		 */
+		public int moveSequence(byte[] route) {
+			for (int k = 0; k < route.length; k++) {
+				if (tryMove(DIRECTIONS[route[k]]) != MoveStatus.MOVED) {
+					return k;
+				}
+			}
+			return route.length;
+		}
+
+		public int getCellID() {
+			return this.cellID;
+		}
+
+		public int getGold() {
+			return this.gold;
+		}
+
+		public boolean isGameOver() {
+			return cellID == goalID;
+		}
+
+		@Override
+		public String toString() {
+			return "Currently agent is at " + MazeHelper.IDToLocation(cellID, layout.getNumOfCols()) + " Collecting: "
+					+ gold + " gold coins.\n";
+		}
+	}
+}
@@ -31,13 +31,13 @@ public class Controller implements KeyListener{
 	public void keyPressed(KeyEvent e){
 		int key = e.getKeyCode();
 		if (key == VK_UP) {
-			maze.movePlayer(Direction.NORTH);
+			maze.tryMove(Direction.NORTH);
 		} else if (key == VK_DOWN) {
-			maze.movePlayer(Direction.SOUTH);
+			maze.tryMove(Direction.SOUTH);
 		} else if (key == VK_LEFT) {
-			maze.movePlayer(Direction.WEST);
+			maze.tryMove(Direction.WEST);
 		} else if (key == VK_RIGHT) {
-			maze.movePlayer(Direction.EAST);
+			maze.tryMove(Direction.EAST);
 		}
 		paintMaze();
 	}
@@ -0,0 +1,247 @@
+import java.util.Arrays;
+
+/**
+ * The {@code CorridorGraph} class compresses a maze layout into a weighted graph of its key cells. The kept cells are
+ * the starting point, the goal location and, if asked for, the cells holding a thief or an initial gold coin. First the
+ * dead-end branches which hold no kept cell are pruned, cell by cell from their dead end, since no path between two
+ * kept cells goes through them. Then the key cells are the kept cells and the junctions left; every other cell has
+ * exactly two openings and only continues a corridor, so each corridor between two key cells becomes one edge weighted
+ * by its number of steps. Searches run on this much smaller graph, and a path is expanded back into cells only for
+ * output. The graph is kept in primitive arrays (compressed sparse rows) and is immutable.
+ */
+public final class CorridorGraph {
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final MazeLayout layout;
+	private final byte[] openings;      // the open sides of each cell left after pruning, bit d.ordinal() when open.
+	private final int[] nodeCell;       // the cell of each node.
+	private final int[] nodeOfCell;     // the node of each cell, or -1 for a corridor or pruned cell.
+	private final int[] edgeStart;      // the edges of node u are edge*[edgeStart[u]..edgeStart[u+1]]
+	private final int[] edgeTarget;
+	private final int[] edgeWeight;
+	private final byte[] edgeDirection; // the Direction the corridor leaves the source node by.
+
+	/**
+	 * Constructs a {@code CorridorGraph} object for solving: the items are ignored, so only the starting point and the
+	 * goal location are kept. The graph of a perfect maze shrinks to the two cells and the corridor between them.
+	 *
+	 * @param layout the layout to compress.
+	 */
+	public CorridorGraph(MazeLayout layout) {
+		this(layout, false);
+	}
+
+	/**
+	 * Constructs a {@code CorridorGraph} object.
+	 *
+	 * @param layout the layout to compress.
+	 * @param keepItemCells true to keep the cells holding a thief or an initial gold coin too, for searches which stop
+	 *                      at items. Items are dense, so this keeps a much larger graph.
+	 */
+	public CorridorGraph(MazeLayout layout, boolean keepItemCells) {
+		this.layout = layout;
+		int numOfCells = layout.getNumOfCells();
+		long[] gold = layout.getInitialGoldBits();
+		boolean[] isKept = new boolean[numOfCells];
+		isKept[layout.getStartCellID()] = true;
+		isKept[layout.getGoalCellID()] = true;
+		this.openings = new byte[numOfCells];
+		int[] queue = new int[numOfCells];
+		int tail = 0;
+		for (int ID = 0; ID < numOfCells; ID++) {
+			isKept[ID] |= keepItemCells && (layout.hasThief(ID) || (gold[ID >>> 6] & (1L << ID)) != 0);
+			openings[ID] = (byte) (~layout.getWallMask(ID) & 0xF);
+			if (!isKept[ID] && Integer.bitCount(openings[ID]) <= 1) {
+				queue[tail++] = ID;
+			}
+		}
+
+		// Prune the dead ends, and the cells which become dead ends once their branch is pruned.
+		boolean[] isPruned = new boolean[numOfCells];
+		for (int head = 0; head < tail; head++) {
+			int ID = queue[head];
+			isPruned[ID] = true;
+			if (openings[ID] == 0) {
+				continue;
+			}
+			Direction d = DIRECTIONS[Integer.numberOfTrailingZeros(openings[ID])];
+			int nextID = layout.nextCellID(ID, d);
+			openings[ID] = 0;
+			openings[nextID] &= (byte) ~(1 << (d.ordinal() ^ 1));
+			if (!isKept[nextID] && !isPruned[nextID] && Integer.bitCount(openings[nextID]) == 1) {
+				queue[tail++] = nextID;
+			}
+		}
+
+		this.nodeOfCell = new int[numOfCells];
+		int numOfNodes = 0;
+		for (int ID = 0; ID < numOfCells; ID++) {
+			boolean isKey = !isPruned[ID] && (isKept[ID] || Integer.bitCount(openings[ID]) != 2);
+			nodeOfCell[ID] = isKey ? numOfNodes++ : -1;
+		}
+		this.nodeCell = new int[numOfNodes];
+		for (int ID = 0; ID < numOfCells; ID++) {
+			if (nodeOfCell[ID] >= 0) {
+				nodeCell[nodeOfCell[ID]] = ID;
+			}
+		}
+
+		// Each node has at most 4 corridors. Self loops are dropped, they never shorten a path.
+		this.edgeStart = new int[numOfNodes + 1];
+		int[] target = new int[4 * numOfNodes];
+		int[] weight = new int[4 * numOfNodes];
+		byte[] direction = new byte[4 * numOfNodes];
+		int numOfEdges = 0;
+		for (int u = 0; u < numOfNodes; u++) {
+			edgeStart[u] = numOfEdges;
+			for (Direction d : DIRECTIONS) {
+				if ((openings[nodeCell[u]] & (1 << d.ordinal())) == 0) {
+					continue;
+				}
+				int ID = layout.nextCellID(nodeCell[u], d);
+				int steps = 1;
+				Direction in = d;
+				while (nodeOfCell[ID] < 0) {
+					in = corridorExit(ID, in);
+					ID = layout.nextCellID(ID, in);
+					steps++;
+				}
+				if (nodeOfCell[ID] != u) {
+					target[numOfEdges] = nodeOfCell[ID];
+					weight[numOfEdges] = steps;
+					direction[numOfEdges] = (byte) d.ordinal();
+					numOfEdges++;
+				}
+			}
+		}
+		edgeStart[numOfNodes] = numOfEdges;
+		this.edgeTarget = Arrays.copyOf(target, numOfEdges);
+		this.edgeWeight = Arrays.copyOf(weight, numOfEdges);
+		this.edgeDirection = Arrays.copyOf(direction, numOfEdges);
+	}
+
+	/**
+	 * Solve the maze from its starting point to its goal location.
+	 * @return the IDs of the cells of a shortest path, from the goal back to the start like {@code getSolveCellIDs},
+	 * or an empty array if the goal cannot be reached.
+	 */
+	public int[] solve() {
+		return findPath(layout.getStartCellID(), layout.getGoalCellID());
+	}
+
+	/**
+	 * Find a shortest path between two key cells by Dijkstra on the corridor graph.
+	 * @param startID the ID of the starting cell. Must be a key cell.
+	 * @param goalID the ID of the goal cell. Must be a key cell.
+	 * @return the IDs of the cells of the path, from the goal back to the start, or an empty array if the goal cannot
+	 * be reached.
+	 * @throws IllegalArgumentException if a cell is not a key cell of the graph.
+	 */
+	public int[] findPath(int startID, int goalID) {
+		if (!isNode(startID) || !isNode(goalID)) {
+			throw new IllegalArgumentException("Cells " + startID + " and " + goalID + " must both be key cells.\n");
+		}
+		MazeEvents.Solve event = new MazeEvents.Solve();
+		event.begin();
+		long start = MazeMetrics.start();
+		int numOfNodes = nodeCell.length;
+		int source = nodeOfCell[startID];
+		int goal = nodeOfCell[goalID];
+		int[] distance = new int[numOfNodes];
+		int[] parentNode = new int[numOfNodes];
+		int[] parentEdge = new int[numOfNodes];
+		boolean[] closed = new boolean[numOfNodes];
+		Arrays.fill(distance, Integer.MAX_VALUE);
+		LongMinHeap heap = new LongMinHeap();
+		long nodesExpanded = 0;
+		distance[source] = 0;
+		heap.push(source);
+		while (!heap.isEmpty()) {
+			int u = (int) heap.pop();
+			if (closed[u]) {
+				continue;
+			}
+			closed[u] = true;
+			nodesExpanded++;
+			if (u == goal) {
+				break;
+			}
+			for (int e = edgeStart[u]; e < edgeStart[u + 1]; e++) {
+				int v = edgeTarget[e];
+				int d = distance[u] + edgeWeight[e];
+				if (!closed[v] && d < distance[v]) {
+					distance[v] = d;
+					parentNode[v] = u;
+					parentEdge[v] = e;
+					heap.push((long) d << 32 | v);
+				}
+			}
+		}
+
+		int[] path = new int[closed[goal] ? distance[goal] + 1 : 0];
+		if (path.length > 0) {
+			// Expand the edges into cells, from the goal back to the start. Each edge is walked from its source node,
+			// so its cells are written backwards into their slots.
+			int v = goal;
+			path[0] = goalID;
+			while (v != source) {
+				int e = parentEdge[v];
+				int u = parentNode[v];
+				int slot = path.length - 1 - distance[u];
+				path[slot] = nodeCell[u];
+				int ID = nodeCell[u];
+				Direction in = DIRECTIONS[edgeDirection[e]];
+				ID = layout.nextCellID(ID, in);
+				for (int k = slot - 1; k > slot - edgeWeight[e]; k--) {
+					path[k] = ID;
+					in = corridorExit(ID, in);
+					ID = layout.nextCellID(ID, in);
+				}
+				v = u;
+			}
+		}
+		MazeMetrics.SOLVE.stop(start);
+		MazeMetrics.SOLVE_NODES_EXPANDED.add(nodesExpanded);
+		event.end();
+		if (event.shouldCommit()) {
+			event.solver = "corridor";
+			event.nodesExpanded = nodesExpanded;
+			event.pathLength = path.length;
+			event.commit();
+		}
+		return path;
+	}
+
+	/**
+	 * Check whether a cell is a key cell, a node of the graph.
+	 * @param ID the ID of a cell.
+	 * @return true if the cell is a node, false if it is inside a corridor or pruned.
+	 */
+	public boolean isNode(int ID) {
+		return ID >= 0 && ID < nodeOfCell.length && nodeOfCell[ID] >= 0;
+	}
+
+	public int getNumOfNodes() {
+		return this.nodeCell.length;
+	}
+
+	/**
+	 * Get the number of directed edges. Each corridor is stored once from each end.
+	 * @return the number of edges.
+	 */
+	public int getNumOfEdges() {
+		return this.edgeTarget.length;
+	}
+
+	/**
+	 * Find the exit of a corridor cell: of its two openings, the one it was not entered by.
+	 * @param ID the ID of a cell with exactly two openings.
+	 * @param in the {@code Direction} the cell was entered by, from the previous cell.
+	 * @return the {@code Direction} to leave the cell by.
+	 */
+	private Direction corridorExit(int ID, Direction in) {
+		int back = in.ordinal() ^ 1; // NORTH/SOUTH and EAST/WEST differ in the lowest bit only.
+		int open = openings[ID] & ~(1 << back);
+		return DIRECTIONS[Integer.numberOfTrailingZeros(open)];
+	}
+}
@@ -0,0 +1,97 @@
+import java.util.Arrays;
+
+/**
+ * The {@code CowBitSet} class represents a bitset which starts as a view of shared pages and copies a page only when
+ * it clears a bit in it (copy-on-write). Many sessions can start from the same initial bits and each one only pays
+ * for the pages it has changed. A page holds 4096 bits in 64 longs.
+ */
+final class CowBitSet {
+	static final int WORDS_PER_PAGE = 64;
+	static final int BITS_PER_PAGE = WORDS_PER_PAGE * 64;
+
+	private final long[][] shared;
+	private final long[][] pages;
+
+	/**
+	 * Constructs a {@code CowBitSet} object viewing the shared pages. The shared pages are never written.
+	 *
+	 * @param shared the initial pages, see {@code toPages}.
+	 */
+	CowBitSet(long[][] shared) {
+		this.shared = shared;
+		this.pages = shared.clone();
+	}
+
+	/**
+	 * Pack the given bit indexes into pages.
+	 * @param bits the indexes of the set bits.
+	 * @param numOfBits the size of the bitset.
+	 * @return the pages holding the bits.
+	 */
+	static long[][] toPages(int[] bits, int numOfBits) {
+		long[][] pages = new long[(numOfBits + BITS_PER_PAGE - 1) / BITS_PER_PAGE][WORDS_PER_PAGE];
+		for (int bit : bits) {
+			pages[bit / BITS_PER_PAGE][(bit % BITS_PER_PAGE) >>> 6] |= 1L << bit;
+		}
+		return pages;
+	}
+
+	boolean get(int bit) {
+		return (pages[bit / BITS_PER_PAGE][(bit % BITS_PER_PAGE) >>> 6] & (1L << bit)) != 0;
+	}
+
+	/**
+	 * Clear the bit, copying its page first if it is still shared.
+	 * @param bit the index of the bit.
+	 * @return true if the bit was set, otherwise false.
+	 */
+	boolean clear(int bit) {
+		int p = bit / BITS_PER_PAGE;
+		int w = (bit % BITS_PER_PAGE) >>> 6;
+		long mask = 1L << bit;
+		if ((pages[p][w] & mask) == 0) {
+			return false;
+		}
+		if (pages[p] == shared[p]) {
+			pages[p] = shared[p].clone();
+		}
+		pages[p][w] &= ~mask;
+		return true;
+	}
+
+	/**
+	 * Get the indexes of the set bits.
+	 * @return the indexes, in increasing order.
+	 */
+	int[] toArray() {
+		int[] bits = new int[16];
+		int count = 0;
+		for (int p = 0; p < pages.length; p++) {
+			for (int w = 0; w < WORDS_PER_PAGE; w++) {
+				long word = pages[p][w];
+				while (word != 0) {
+					if (count == bits.length) {
+						bits = Arrays.copyOf(bits, count * 2);
+					}
+					bits[count++] = p * BITS_PER_PAGE + w * 64 + Long.numberOfTrailingZeros(word);
+					word &= word - 1;
+				}
+			}
+		}
+		return Arrays.copyOf(bits, count);
+	}
+
+	/**
+	 * Count the pages this bitset has copied. Each copied page costs 512 bytes.
+	 * @return number of private pages.
+	 */
+	int countCopiedPages() {
+		int count = 0;
+		for (int p = 0; p < pages.length; p++) {
+			if (pages[p] != shared[p]) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
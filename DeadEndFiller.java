@@ -0,0 +1,192 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * The {@code DeadEndFiller} class solves a maze by dead-end filling: every cell with a single opening, other than the
+ * starting point and the goal location, is sealed, and so is every cell left with a single opening by the sealing,
+ * until no dead end is left. A sealed branch never leads from the start to the goal, so on a perfect maze only the
+ * solution remains, and on a room maze only the solution and the loops around it.
+ *
+ * The openings are packed into one bitset per direction, in row-major order. The grid is then swept in blocks of rows
+ * on all cores: each block finds its dead ends and follows every chain of sealings to its end, even into other blocks,
+ * with a worklist of its own. The number of unsealed openings of each cell is kept in an atomic array, so exactly one
+ * sweep sees a cell drop to a single opening and takes it over. Finally the path is found by the same DFS as
+ * {@code GeneralMaze}, restricted to the unsealed cells. The sealed branches never hold the goal, so the path is the
+ * very path the DFS finds on the whole maze.
+ */
+public final class DeadEndFiller {
+	private static final Direction[] DIRECTIONS = Direction.values();
+	private static final int ROWS_PER_BLOCK = 64;
+	private static final int SEALED = -1; // any negative degree is sealed, a racing neighbour may still decrement it.
+
+	private DeadEndFiller() {
+	}
+
+	/**
+	 * Solve a maze from its wall masks.
+	 * @param wallMasks the walls of every cell, see {@code GeneralMaze.getWallMasks}.
+	 * @param numOfRows number of rows in the maze.
+	 * @param numOfCols number of columns in the maze.
+	 * @param startID the ID of the starting cell.
+	 * @param goalID the ID of the goal cell.
+	 * @return the IDs of the cells of the path, from the goal back to the start like {@code getSolveCellIDs}, or an
+	 * empty array if the goal cannot be reached.
+	 * @throws IllegalArgumentException if the number of wall masks does not match the size of the maze.
+	 */
+	public static int[] solve(byte[] wallMasks, int numOfRows, int numOfCols, int startID, int goalID) {
+		int numOfCells = numOfRows * numOfCols;
+		if (wallMasks.length != numOfCells) {
+			throw new IllegalArgumentException("Expected " + numOfCells + " wall masks, got " + wallMasks.length +
+					".\n");
+		}
+		MazeEvents.Solve event = new MazeEvents.Solve();
+		event.begin();
+		long start = MazeMetrics.start();
+
+		// Each word of a bitset is packed by a single task, so no word is shared between threads.
+		int numOfWords = (numOfCells + 63) >>> 6;
+		long[][] openBits = new long[DIRECTIONS.length][numOfWords];
+		IntStream.range(0, numOfWords).parallel().forEach(w -> {
+			for (int ID = w << 6; ID < Math.min(numOfCells, (w + 1) << 6); ID++) {
+				int open = ~wallMasks[ID] & 0xF;
+				for (int d = 0; d < DIRECTIONS.length; d++) {
+					if ((open & (1 << d)) != 0) {
+						openBits[d][w] |= 1L << ID;
+					}
+				}
+			}
+		});
+
+		AtomicIntegerArray degree = new AtomicIntegerArray(numOfCells);
+		int numOfBlocks = (numOfRows + ROWS_PER_BLOCK - 1) / ROWS_PER_BLOCK;
+		IntStream.range(0, numOfBlocks).parallel().forEach(b -> {
+			int from = b * ROWS_PER_BLOCK * numOfCols;
+			int to = Math.min(numOfRows, (b + 1) * ROWS_PER_BLOCK) * numOfCols;
+			for (int ID = from; ID < to; ID++) {
+				int count = 0;
+				for (long[] bits : openBits) {
+					count += (int) (bits[ID >>> 6] >>> ID) & 1;
+				}
+				degree.set(ID, count);
+			}
+		});
+		long sealedCells = IntStream.range(0, numOfBlocks).parallel().mapToLong(b -> {
+			int from = b * ROWS_PER_BLOCK * numOfCols;
+			int to = Math.min(numOfRows, (b + 1) * ROWS_PER_BLOCK) * numOfCols;
+			return sweep(openBits, degree, numOfRows, numOfCols, from, to, startID, goalID);
+		}).sum();
+
+		int[] path = solveByDfs(openBits, degree, numOfRows, numOfCols, startID, goalID);
+		long nodesExpanded = sealedCells;
+		MazeMetrics.SOLVE.stop(start);
+		MazeMetrics.SOLVE_NODES_EXPANDED.add(nodesExpanded);
+		event.end();
+		if (event.shouldCommit()) {
+			event.solver = "deadEndFilling";
+			event.nodesExpanded = nodesExpanded;
+			event.pathLength = path.length;
+			event.commit();
+		}
+		return path;
+	}
+
+	/**
+	 * Seal the dead ends of a block of rows, and every cell their sealing turns into a dead end.
+	 * @param from the ID of the first cell of the block.
+	 * @param to the ID after the last cell of the block.
+	 * @return the number of cells sealed by this sweep.
+	 */
+	private static long sweep(long[][] openBits, AtomicIntegerArray degree, int numOfRows, int numOfCols, int from,
+	                          int to, int startID, int goalID) {
+		long sealedCells = 0;
+		int[] worklist = new int[64];
+		for (int ID = from; ID < to; ID++) {
+			if (degree.get(ID) > 1 || ID == startID || ID == goalID) {
+				continue;
+			}
+			int size = 0;
+			worklist[size++] = ID;
+			while (size > 0) {
+				int cellID = worklist[--size];
+				// A cell may be reached by two sweeps at once, only the one which seals it goes on.
+				int count = degree.get(cellID);
+				while (count >= 0 && count <= 1 && !degree.compareAndSet(cellID, count, SEALED)) {
+					count = degree.get(cellID);
+				}
+				if (count < 0 || count > 1) {
+					continue;
+				}
+				sealedCells++;
+				for (Direction d : DIRECTIONS) {
+					if ((openBits[d.ordinal()][cellID >>> 6] & (1L << cellID)) == 0) {
+						continue;
+					}
+					int nextID = nextCellID(cellID, d, numOfRows, numOfCols);
+					if (degree.get(nextID) >= 0 && degree.decrementAndGet(nextID) == 1
+							&& nextID != startID && nextID != goalID) {
+						if (size == worklist.length) {
+							worklist = Arrays.copyOf(worklist, size * 2);
+						}
+						worklist[size++] = nextID;
+					}
+				}
+			}
+		}
+		return sealedCells;
+	}
+
+	/**
+	 * Find the path by an iterative DFS from the starting point over the unsealed cells, trying the directions in the
+	 * same order as {@code GeneralMaze}.
+	 * @return the IDs of the cells of the path, from the goal back to the starting point.
+	 */
+	private static int[] solveByDfs(long[][] openBits, AtomicIntegerArray degree, int numOfRows, int numOfCols,
+	                                int startID, int goalID) {
+		int numOfCells = numOfRows * numOfCols;
+		boolean[] seen = new boolean[numOfCells];
+		int[] stack = new int[numOfCells]; // the cells of the current path, from start.
+		byte[] nextDirection = new byte[numOfCells]; // the next Direction to try for each cell on the stack.
+		int top = 0;
+		stack[0] = startID;
+		seen[startID] = true;
+		while (top >= 0 && stack[top] != goalID) {
+			int ID = stack[top];
+			if (nextDirection[top] == DIRECTIONS.length) {
+				top--;
+				continue;
+			}
+			int d = nextDirection[top]++;
+			if ((openBits[d][ID >>> 6] & (1L << ID)) == 0) {
+				continue;
+			}
+			int nextID = nextCellID(ID, DIRECTIONS[d], numOfRows, numOfCols);
+			if (!seen[nextID] && degree.get(nextID) >= 0) {
+				seen[nextID] = true;
+				stack[++top] = nextID;
+				nextDirection[top] = 0;
+			}
+		}
+
+		int[] pathFromGoalToStart = new int[top + 1];
+		for (int k = 0; k <= top; k++) {
+			pathFromGoalToStart[k] = stack[top - k];
+		}
+		return pathFromGoalToStart;
+	}
+
+	/**
+	 * Find the ID of the adjacent cell at direction d, wrapping around the border. A non-wrap maze always keeps its
+	 * border walls, so the wrapped cell is only ever reached through a torn down border wall.
+	 */
+	private static int nextCellID(int ID, Direction d, int numOfRows, int numOfCols) {
+		int i = MazeHelper.IDToI(ID, numOfCols);
+		int j = MazeHelper.IDToJ(ID, numOfCols);
+		return switch (d) {
+			case NORTH -> MazeHelper.idxToID((i - 1 + numOfRows) % numOfRows, j, numOfCols);
+			case SOUTH -> MazeHelper.idxToID((i + 1) % numOfRows, j, numOfCols);
+			case EAST -> MazeHelper.idxToID(i, (j + 1) % numOfCols, numOfCols);
+			case WEST -> MazeHelper.idxToID(i, (j - 1 + numOfCols) % numOfCols, numOfCols);
+		};
+	}
+}
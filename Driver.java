@@ -1,8 +1,25 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import java.util.Scanner;
 
 class Driver {
-	public static void main(String[] args) {
-		// arg 0: print -> print maze; draw -> draw image; solve -> automatic solve maze and draw
+	public static void main(String[] args) throws IOException {
+		// Server mode: host many game sessions speaking the GameSession text protocol.
+		// serve 7777             -> listen on TCP port 7777 of the loopback address.
+		// serve unix:/tmp/maze   -> listen on the Unix-domain socket /tmp/maze.
+		if (args[0].equals("serve")) {
+			MazeServer server = args[1].startsWith("unix:") ? MazeServer.openUnix(Path.of(args[1].substring(5)))
+					: MazeServer.openTcp(Integer.parseInt(args[1]));
+			System.out.println("Maze server listening on " + server.getLocalAddress());
+			server.serve();
+			return;
+		}
+
+		// arg 0: print -> print maze; draw -> draw image; solve -> automatic solve maze and draw;
+		//        analyze -> print analytics
 		// arg 1: non_wrap -> no wrap; wrap -> wrap.
 		// arg 2: perfect -> perfect maze; room -> room maze.
 		// arg 3: number of rows in the maze.
@@ -26,19 +43,38 @@ class Driver {
 		// Translate starting point and goal location's index to its location on the canvas.
 		Location startLocation = new Location(startIdxI, startIdxJ);
 		Location goalLocation = new Location(goalIdxI, goalIdxJ);
-		// Generate specific maze.
-		Maze maze;
-		if (type.equals("perfect") && isWrap.equals("non_wrap")) {
-			maze = new PerfectMaze(numOfRows, numOfCols, startLocation, goalLocation);
-		} else if (type.equals("room") && isWrap.equals("non_wrap")) {
-			maze = new RoomMaze(numOfRows, numOfCols, numOfRemainingWalls, startLocation, goalLocation);
-		} else if (type.equals("room") && isWrap.equals("wrap")) {
-			maze = new WrapRoomMaze(numOfRows, numOfCols, numOfRemainingWalls, startLocation, goalLocation);
-		} else {
-			throw new IllegalArgumentException("Unsupported maze type.");
+		// Print the analytics of one maze: dead ends, junctions, corridors, solution length and distances.
+		// Case 1: perfect maze     ->  analyze non_wrap perfect 40 40 0 0 39 39 0
+		// Case 2: room maze        ->  analyze non_wrap room 40 40 0 0 39 39 1000
+		if (howToDealWithMaze.equals("analyze")) {
+			GeneralMaze analyzed = MazeType.fromArgs(isWrap, type).create(numOfRows, numOfCols, numOfRemainingWalls,
+					startLocation, goalLocation, new Random().nextLong());
+			System.out.print(MazeAnalytics.analyze(new MazeLayout(analyzed)));
+			return;
 		}
+
+		// Generate specific maze.
+		// Every game is recorded, so it can be replayed from its seed and moves.
+		GameRecorder maze = new GameRecorder(MazeType.fromArgs(isWrap, type), numOfRows, numOfCols,
+				numOfRemainingWalls, startLocation, goalLocation);
 		System.out.println("The total remained walls in the maze: " + maze.countRemainedWalls());
 
+		// Simulate many agents on mazes of these arguments and print the histograms of gold, steps and thieves.
+		// Case 1: perfect maze     ->  simulate non_wrap perfect 40 40 0 0 39 39 0
+		// Case 2: wrap room maze   ->  simulate wrap room 40 40 0 0 39 39 1600
+		if (howToDealWithMaze.equals("simulate")) {
+			List<MazeLayout> layouts = new ArrayList<>();
+			for (int seed = 0; seed < 8; seed++) {
+				layouts.add(new MazeLayout(MazeType.fromArgs(isWrap, type).create(numOfRows, numOfCols,
+						numOfRemainingWalls, startLocation, goalLocation, seed)));
+			}
+			MazeSimulation simulation = new MazeSimulation(layouts, numOfRows * numOfCols * 20, 0.2);
+			for (MazeSimulation.Strategy strategy : MazeSimulation.Strategy.values()) {
+				System.out.println(simulation.run(strategy, 10_000, 1));
+			}
+			return;
+		}
+
 		// Print maze, move the player in the terminal using scanner.
 		// Copy below to the Edit Configuration:
 		// Case 1: perfect maze     ->  print non_wrap perfect 4 6 0 0 3 5 0    //last one: any number
@@ -54,15 +90,18 @@ class Driver {
 				String line = s.nextLine();
 				Direction d = Direction.valueOf(line);
 				System.out.println("Player moves to: " + d);
-				try {
-					maze.movePlayer(d);
-				}catch(Exception e) {
-					System.out.println(e);
+				if (maze.tryMove(d) == MoveStatus.BLOCKED) {
+					System.out.println("Player can not move to this direction " + d
+							+ ". A wall stands at this direction.");
 				}
 				System.out.println(maze); // this is optional
 			}
 			System.out.println(maze.printPlayerStatus());
 			System.out.println("Game is over.");
+			System.out.println("Recorded game: " + maze.getRecord());
+			if (MazeMetrics.ENABLED) {
+				System.out.println(MazeMetrics.report());
+			}
 		}
 
 		// Draw maze and play the maze game with keyboard.
@@ -0,0 +1,404 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The {@code ExternalMazeSolver} class solves mazes stored on disk which may be larger than memory. The grid is never
+ * loaded: the walls are read through memory-mapped chunks of the maze file, the visited cells and the direction back
+ * to the parent of each cell are kept in memory-mapped scratch files, and each level of the BFS frontier is spilled to
+ * a file written and read sequentially. Like the external BFS of Munagala and Ranade, the candidates of the next level
+ * are sorted by cell ID with an external merge sort and their duplicates are dropped while merging, so every level is
+ * expanded in ID order. The neighbours of a cell are at most one row away from it, so the walls and the scratch files
+ * are then swept in order too, and a level costs sequential I/O rather than random page faults.
+ *
+ * The maze file starts with a 32 bytes header: the magic number, the version, the number of rows and columns (ints),
+ * and the IDs of the starting point and the goal location (longs). Then the walls follow as one nibble per cell, the
+ * even cell in the low nibble, with bit {@code d.ordinal()} set when a wall stands at {@code Direction} d.
+ */
+public final class ExternalMazeSolver {
+	private static final int MAGIC = 0x4D415A45; // "MAZE"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 32;
+	private static final int CHUNK_BITS = 30; // each mapped chunk is 1 GiB, below the 2 GiB limit of a buffer.
+	private static final int SPILL_BUFFER_SIZE = 1 << 16;
+	private static final int RUN_LENGTH = 1 << 22; // each sorted run holds 32 MiB of candidates in memory.
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final Path mazeFile;
+	private final Path workDir;
+	private final int numOfRows;
+	private final int numOfCols;
+	private final long numOfCells;
+	private final long startID;
+	private final long goalID;
+
+	/**
+	 * Constructs an {@code ExternalMazeSolver} object for a maze file. Only the header is read.
+	 *
+	 * @param mazeFile the maze file, see {@code write}.
+	 * @param workDir the directory of the scratch files.
+	 * @throws IOException if the header cannot be read.
+	 * @throws IllegalArgumentException if the file is not a maze file.
+	 */
+	public ExternalMazeSolver(Path mazeFile, Path workDir) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(mazeFile)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IllegalArgumentException("File " + mazeFile + " is not a maze file.\n");
+			}
+			this.numOfRows = in.readInt();
+			this.numOfCols = in.readInt();
+			this.startID = in.readLong();
+			this.goalID = in.readLong();
+		}
+		this.mazeFile = mazeFile;
+		this.workDir = workDir;
+		this.numOfCells = (long) numOfRows * numOfCols;
+		if (Files.size(mazeFile) < HEADER_SIZE + (numOfCells + 1) / 2) {
+			throw new IllegalArgumentException("File " + mazeFile + " is truncated.\n");
+		}
+	}
+
+	/**
+	 * Write a maze layout as a maze file.
+	 * @param layout the layout to write.
+	 * @param mazeFile the file to write to. Overwritten if it exists.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public static void write(MazeLayout layout, Path mazeFile) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(mazeFile),
+				SPILL_BUFFER_SIZE))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(layout.getNumOfRows());
+			out.writeInt(layout.getNumOfCols());
+			out.writeLong(layout.getStartCellID());
+			out.writeLong(layout.getGoalCellID());
+			int numOfCells = layout.getNumOfCells();
+			for (int ID = 0; ID < numOfCells; ID += 2) {
+				int high = ID + 1 < numOfCells ? layout.getWallMask(ID + 1) : 0;
+				out.writeByte(high << 4 | layout.getWallMask(ID));
+			}
+		}
+	}
+
+	/**
+	 * Solve the maze by BFS from the starting point, and stream the path to a text file, one {@code Location} per line,
+	 * from the goal location back to the starting point like {@code getSolveLocation}. BFS finds a shortest path,
+	 * which is the path of {@code getSolveLocation} for a perfect maze.
+	 * @param output the file to write the path to. Overwritten if it exists.
+	 * @return the number of cells of the path, or 0 if the goal cannot be reached.
+	 * @throws IOException if a file cannot be read or written.
+	 */
+	public long solve(Path output) throws IOException {
+		MazeEvents.Solve event = new MazeEvents.Solve();
+		event.begin();
+		long start = MazeMetrics.start();
+		Path visitedFile = Files.createTempFile(workDir, "visited", ".bits");
+		Path parentFile = Files.createTempFile(workDir, "parent", ".dirs");
+		Path frontierFile = Files.createTempFile(workDir, "frontier", ".ids");
+		Path nextFrontierFile = Files.createTempFile(workDir, "frontier", ".ids");
+		Path candidateFile = Files.createTempFile(workDir, "candidate", ".ids");
+		long nodesExpanded = 0;
+		long pathLength = 0;
+		try (FileChannel mazeChannel = FileChannel.open(mazeFile, StandardOpenOption.READ);
+		     FileChannel visitedChannel = FileChannel.open(visitedFile, StandardOpenOption.READ,
+				     StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+		     FileChannel parentChannel = FileChannel.open(parentFile, StandardOpenOption.READ,
+				     StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE)) {
+			MappedBytes walls = new MappedBytes(mazeChannel, FileChannel.MapMode.READ_ONLY, HEADER_SIZE,
+					(numOfCells + 1) / 2);
+			MappedBytes visited = new MappedBytes(visitedChannel, FileChannel.MapMode.READ_WRITE, 0,
+					(numOfCells + 7) / 8);
+			MappedBytes parent = new MappedBytes(parentChannel, FileChannel.MapMode.READ_WRITE, 0,
+					(numOfCells + 3) / 4);
+
+			markVisited(visited, startID);
+			try (DataOutputStream out = openSpill(frontierFile)) {
+				out.writeLong(startID);
+			}
+			long frontierSize = 1;
+			boolean isGoalReached = startID == goalID;
+			while (frontierSize > 0 && !isGoalReached) {
+				// Expand the level in ID order, spilling each unvisited neighbour with the direction back to its
+				// parent packed in the low 2 bits.
+				long numOfCandidates = 0;
+				try (DataInputStream in = openRead(frontierFile);
+				     DataOutputStream out = openSpill(candidateFile)) {
+					for (long k = 0; k < frontierSize; k++) {
+						long ID = in.readLong();
+						nodesExpanded++;
+						int mask = wallMask(walls, ID);
+						for (Direction d : DIRECTIONS) {
+							if ((mask & (1 << d.ordinal())) != 0) {
+								continue;
+							}
+							long nextID = nextCellID(ID, d);
+							if (!isVisited(visited, nextID)) {
+								out.writeLong(nextID << 2 | opposite(d).ordinal());
+								numOfCandidates++;
+							}
+						}
+					}
+				}
+				// Sort the candidates by cell ID, then keep the first of each cell as the next level.
+				long nextFrontierSize = 0;
+				try (SortedRuns runs = new SortedRuns(candidateFile, numOfCandidates);
+				     DataOutputStream out = openSpill(nextFrontierFile)) {
+					long previousID = -1;
+					while (runs.hasNext()) {
+						long candidate = runs.next();
+						long nextID = candidate >>> 2;
+						if (nextID == previousID) {
+							continue;
+						}
+						previousID = nextID;
+						markVisited(visited, nextID);
+						setParentDirection(parent, nextID, DIRECTIONS[(int) (candidate & 3)]);
+						out.writeLong(nextID);
+						nextFrontierSize++;
+						isGoalReached |= nextID == goalID;
+					}
+				}
+				Path spent = frontierFile;
+				frontierFile = nextFrontierFile;
+				nextFrontierFile = spent;
+				frontierSize = nextFrontierSize;
+			}
+			if (isGoalReached) {
+				pathLength = writePath(parent, output);
+			} else {
+				Files.deleteIfExists(output);
+			}
+		} finally {
+			Files.deleteIfExists(frontierFile);
+			Files.deleteIfExists(nextFrontierFile);
+			Files.deleteIfExists(candidateFile);
+		}
+		MazeMetrics.SOLVE.stop(start);
+		MazeMetrics.SOLVE_NODES_EXPANDED.add(nodesExpanded);
+		event.end();
+		if (event.shouldCommit()) {
+			event.solver = "external-bfs";
+			event.nodesExpanded = nodesExpanded;
+			event.pathLength = (int) Math.min(pathLength, Integer.MAX_VALUE);
+			event.commit();
+		}
+		return pathLength;
+	}
+
+	public int getNumOfRows() {
+		return this.numOfRows;
+	}
+
+	public int getNumOfCols() {
+		return this.numOfCols;
+	}
+
+	/**
+	 * Follow the parent directions from the goal location back to the starting point, writing each cell.
+	 * @param parent the direction back to the parent of each visited cell.
+	 * @param output the file to write the path to.
+	 * @return the number of cells of the path.
+	 * @throws IOException if the file cannot be written.
+	 */
+	private long writePath(MappedBytes parent, Path output) throws IOException {
+		long count = 0;
+		try (BufferedWriter out = Files.newBufferedWriter(output)) {
+			long ID = goalID;
+			while (true) {
+				out.write("(" + ID / numOfCols + ", " + ID % numOfCols + ")");
+				out.newLine();
+				count++;
+				if (ID == startID) {
+					return count;
+				}
+				ID = nextCellID(ID, parentDirection(parent, ID));
+			}
+		}
+	}
+
+	/**
+	 * Find the ID of the adjacent cell at direction d. A non-wrap maze always keeps its border walls, so wrapping the
+	 * index around is only ever reached through a torn down border wall of a wrap maze.
+	 * @param ID the ID of a cell.
+	 * @param d the {@code Direction} to move to.
+	 * @return the ID of the adjacent cell.
+	 */
+	private long nextCellID(long ID, Direction d) {
+		long i = ID / numOfCols;
+		long j = ID % numOfCols;
+		return switch (d) {
+			case NORTH -> (i == 0 ? numOfRows - 1 : i - 1) * numOfCols + j;
+			case SOUTH -> (i == numOfRows - 1 ? 0 : i + 1) * numOfCols + j;
+			case EAST -> i * numOfCols + (j == numOfCols - 1 ? 0 : j + 1);
+			case WEST -> i * numOfCols + (j == 0 ? numOfCols - 1 : j - 1);
+		};
+	}
+
+	private static int wallMask(MappedBytes walls, long ID) {
+		int pair = walls.get(ID >>> 1);
+		return (ID & 1) == 0 ? pair & 0xF : (pair >>> 4) & 0xF;
+	}
+
+	private static boolean isVisited(MappedBytes visited, long ID) {
+		return (visited.get(ID >>> 3) & (1 << (ID & 7))) != 0;
+	}
+
+	private static void markVisited(MappedBytes visited, long ID) {
+		visited.put(ID >>> 3, (byte) (visited.get(ID >>> 3) | (1 << (ID & 7))));
+	}
+
+	private static Direction parentDirection(MappedBytes parent, long ID) {
+		int shift = (int) (ID & 3) * 2;
+		return DIRECTIONS[(parent.get(ID >>> 2) >>> shift) & 3];
+	}
+
+	private static void setParentDirection(MappedBytes parent, long ID, Direction d) {
+		int shift = (int) (ID & 3) * 2;
+		int packed = parent.get(ID >>> 2) & ~(3 << shift) | d.ordinal() << shift;
+		parent.put(ID >>> 2, (byte) packed);
+	}
+
+	private static Direction opposite(Direction d) {
+		return switch (d) {
+			case NORTH -> Direction.SOUTH;
+			case SOUTH -> Direction.NORTH;
+			case EAST -> Direction.WEST;
+			case WEST -> Direction.EAST;
+		};
+	}
+
+	private static DataOutputStream openSpill(Path file) throws IOException {
+		return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), SPILL_BUFFER_SIZE));
+	}
+
+	private static DataInputStream openRead(Path file) throws IOException {
+		return new DataInputStream(new BufferedInputStream(Files.newInputStream(file), SPILL_BUFFER_SIZE));
+	}
+
+	/**
+	 * The {@code SortedRuns} class sorts a spilled file of longs which may be larger than memory. The file is cut into
+	 * runs of {@code RUN_LENGTH} longs, each sorted in memory and spilled to its own file, then the runs are merged
+	 * through a heap of their heads. A single run is read back directly.
+	 */
+	private final class SortedRuns implements AutoCloseable {
+		private final List<Path> files = new ArrayList<>();
+		private final PriorityQueue<Run> heads = new PriorityQueue<>(Comparator.comparingLong(run -> run.head));
+
+		private SortedRuns(Path input, long count) throws IOException {
+			try (DataInputStream in = openRead(input)) {
+				long[] buffer = new long[(int) Math.min(count, RUN_LENGTH)];
+				for (long remaining = count; remaining > 0; ) {
+					int length = (int) Math.min(remaining, RUN_LENGTH);
+					for (int k = 0; k < length; k++) {
+						buffer[k] = in.readLong();
+					}
+					Arrays.sort(buffer, 0, length);
+					Path file = Files.createTempFile(workDir, "run", ".ids");
+					files.add(file);
+					try (DataOutputStream out = openSpill(file)) {
+						for (int k = 0; k < length; k++) {
+							out.writeLong(buffer[k]);
+						}
+					}
+					Run run = new Run(openRead(file), length);
+					run.advance();
+					heads.add(run);
+					remaining -= length;
+				}
+			} catch (IOException | RuntimeException e) {
+				close();
+				throw e;
+			}
+		}
+
+		private boolean hasNext() {
+			return !heads.isEmpty();
+		}
+
+		private long next() throws IOException {
+			Run run = heads.poll();
+			long value = run.head;
+			if (run.advance()) {
+				heads.add(run);
+			} else {
+				run.in.close();
+			}
+			return value;
+		}
+
+		@Override
+		public void close() throws IOException {
+			for (Run run : heads) {
+				run.in.close();
+			}
+			heads.clear();
+			for (Path file : files) {
+				Files.deleteIfExists(file);
+			}
+		}
+	}
+
+	/**
+	 * The {@code Run} class reads one sorted run, keeping its smallest unread long as the head.
+	 */
+	private static final class Run {
+		private final DataInputStream in;
+		private long remaining;
+		private long head;
+
+		private Run(DataInputStream in, long length) {
+			this.in = in;
+			this.remaining = length;
+		}
+
+		private boolean advance() throws IOException {
+			if (remaining == 0) {
+				return false;
+			}
+			head = in.readLong();
+			remaining--;
+			return true;
+		}
+	}
+
+	/**
+	 * The {@code MappedBytes} class maps a region of a file which may be larger than one buffer, as a sequence of
+	 * 1 GiB chunks indexed by a long.
+	 */
+	private static final class MappedBytes {
+		private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+		private final MappedByteBuffer[] chunks;
+
+		private MappedBytes(FileChannel channel, FileChannel.MapMode mode, long position, long size)
+				throws IOException {
+			this.chunks = new MappedByteBuffer[(int) ((size + CHUNK_MASK) >>> CHUNK_BITS)];
+			for (int k = 0; k < chunks.length; k++) {
+				long offset = (long) k << CHUNK_BITS;
+				// Mapping in READ_WRITE mode grows the file, so the scratch files start as zeros.
+				chunks[k] = channel.map(mode, position + offset, Math.min(CHUNK_MASK + 1, size - offset));
+			}
+		}
+
+		private byte get(long index) {
+			return chunks[(int) (index >>> CHUNK_BITS)].get((int) (index & CHUNK_MASK));
+		}
+
+		private void put(long index, byte b) {
+			chunks[(int) (index >>> CHUNK_BITS)].put((int) (index & CHUNK_MASK), b);
+		}
+	}
+}
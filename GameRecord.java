@@ -0,0 +1,250 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The {@code GameRecord} class represents one recorded game: the maze arguments and item densities, the seed the maze
+ * was generated from and the applied moves. Each move is packed in 2 bits (the ordinal of its {@code Direction}), 32
+ * moves per long. A record is enough to rebuild the maze and fast-forward the game to any step.
+ */
+public final class GameRecord {
+	private static final int MOVES_PER_WORD = 32;
+	private static final int REPLAY_BUFFER_SIZE = 4096;
+	private static final int READ_CHUNK_WORDS = 1024;
+
+	private final MazeType type;
+	private final int numOfRows;
+	private final int numOfCols;
+	private final int numOfRemainingWalls;
+	private final int startI;
+	private final int startJ;
+	private final int goalI;
+	private final int goalJ;
+	private final long seed;
+	private final double goldCoinDensity;
+	private final double thiefDensity;
+	private long[] moves;
+	private int numOfMoves;
+
+	/**
+	 * Constructs an empty {@code GameRecord} for the maze generated from the given arguments, with the default item
+	 * densities of {@code Parameters}.
+	 *
+	 * @param type the type of the maze.
+	 * @param numOfRows number of rows in the maze.
+	 * @param numOfCols number of columns in the maze.
+	 * @param numOfRemainingWalls number of remaining walls in the maze.
+	 * @param startLocation starting point in the maze.
+	 * @param goalLocation goal point in the maze.
+	 * @param seed the seed the maze was generated from.
+	 */
+	public GameRecord(MazeType type, int numOfRows, int numOfCols, int numOfRemainingWalls, Location startLocation,
+	                  Location goalLocation, long seed) {
+		this(type, numOfRows, numOfCols, numOfRemainingWalls, startLocation, goalLocation, seed,
+				Parameters.GOLD_COIN_PERCENT, Parameters.THIEF_PERCENT);
+	}
+
+	/**
+	 * Constructs an empty {@code GameRecord} for the maze generated from the given arguments and item densities.
+	 *
+	 * @param type the type of the maze.
+	 * @param numOfRows number of rows in the maze.
+	 * @param numOfCols number of columns in the maze.
+	 * @param numOfRemainingWalls number of remaining walls in the maze.
+	 * @param startLocation starting point in the maze.
+	 * @param goalLocation goal point in the maze.
+	 * @param seed the seed the maze was generated from.
+	 * @param goldCoinDensity share of the cells holding a gold coin, from 0 to 1.
+	 * @param thiefDensity share of the cells holding a thief, from 0 to 1.
+	 */
+	public GameRecord(MazeType type, int numOfRows, int numOfCols, int numOfRemainingWalls, Location startLocation,
+	                  Location goalLocation, long seed, double goldCoinDensity, double thiefDensity) {
+		this.type = type;
+		this.numOfRows = numOfRows;
+		this.numOfCols = numOfCols;
+		this.numOfRemainingWalls = numOfRemainingWalls;
+		this.startI = startLocation.getI();
+		this.startJ = startLocation.getJ();
+		this.goalI = goalLocation.getI();
+		this.goalJ = goalLocation.getJ();
+		this.seed = seed;
+		this.goldCoinDensity = goldCoinDensity;
+		this.thiefDensity = thiefDensity;
+		this.moves = new long[4];
+		this.numOfMoves = 0;
+	}
+
+	/**
+	 * Append one applied move to the record.
+	 * @param d the {@code Direction} the player moved to.
+	 */
+	public void append(Direction d) {
+		if (numOfMoves == moves.length * MOVES_PER_WORD) {
+			moves = Arrays.copyOf(moves, moves.length * 2);
+		}
+		moves[numOfMoves / MOVES_PER_WORD] |= (long) d.ordinal() << ((numOfMoves % MOVES_PER_WORD) * 2);
+		numOfMoves++;
+	}
+
+	/**
+	 * Get the ordinal of the {@code Direction} of the k-th move.
+	 * @param k index of the move. [0, numOfMoves - 1]
+	 * @return the ordinal of the {@code Direction}.
+	 */
+	public int getMove(int k) {
+		if (k < 0 || k >= numOfMoves) {
+			throw new IndexOutOfBoundsException("Move " + k + " is not recorded.");
+		}
+		return (int) (moves[k / MOVES_PER_WORD] >>> ((k % MOVES_PER_WORD) * 2)) & 3;
+	}
+
+	public int getNumOfMoves() {
+		return this.numOfMoves;
+	}
+
+	public long getSeed() {
+		return this.seed;
+	}
+
+	public MazeType getType() {
+		return this.type;
+	}
+
+	public double getGoldCoinDensity() {
+		return this.goldCoinDensity;
+	}
+
+	public double getThiefDensity() {
+		return this.thiefDensity;
+	}
+
+	/**
+	 * Rebuild the recorded maze from its seed, with the player standing on the starting point.
+	 * @return a newly generated maze, identical to the recorded one before the first move.
+	 */
+	public GeneralMaze rebuildMaze() {
+		return type.create(numOfRows, numOfCols, numOfRemainingWalls, new Location(startI, startJ),
+				new Location(goalI, goalJ), seed, goldCoinDensity, thiefDensity);
+	}
+
+	/**
+	 * Rebuild the recorded maze and fast-forward the game to the given step. The moves are unpacked into a small
+	 * buffer and applied through {@code moveSequence}.
+	 * @param step the number of moves to apply. [0, numOfMoves]
+	 * @return the maze after {@code step} moves.
+	 * @throws IllegalStateException if a recorded move is blocked, which means the record does not match the maze.
+	 */
+	public GeneralMaze replay(int step) {
+		if (step < 0 || step > numOfMoves) {
+			throw new IndexOutOfBoundsException("Step " + step + " is out of range [0, " + numOfMoves + "].");
+		}
+		GeneralMaze maze = rebuildMaze();
+		fastForward(maze, 0, step);
+		return maze;
+	}
+
+	/**
+	 * Apply the recorded moves {@code [from, to)} to a maze which already stands at step {@code from}.
+	 * @param maze the maze rebuilt from this record, or a session on its layout.
+	 * @param from the index of the first move to apply.
+	 * @param to the index after the last move to apply.
+	 * @throws IllegalStateException if a recorded move is blocked, which means the record does not match the maze.
+	 */
+	public void fastForward(Maze maze, int from, int to) {
+		byte[] buffer = new byte[Math.min(REPLAY_BUFFER_SIZE, Math.max(to - from, 0))];
+		int k = from;
+		while (k < to) {
+			int len = Math.min(buffer.length, to - k);
+			unpack(k, buffer, len);
+			int applied = maze.moveSequence(buffer, 0, len);
+			if (applied != len) {
+				throw new IllegalStateException("Recorded move " + (k + applied) + " can not be replayed.");
+			}
+			k += len;
+		}
+	}
+
+	/**
+	 * Write this record in a compact binary form.
+	 * @param out the destination.
+	 * @throws IOException if the destination fails.
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeByte(type.ordinal());
+		out.writeInt(numOfRows);
+		out.writeInt(numOfCols);
+		out.writeInt(numOfRemainingWalls);
+		out.writeInt(startI);
+		out.writeInt(startJ);
+		out.writeInt(goalI);
+		out.writeInt(goalJ);
+		out.writeLong(seed);
+		out.writeDouble(goldCoinDensity);
+		out.writeDouble(thiefDensity);
+		out.writeInt(numOfMoves);
+		int words = (numOfMoves + MOVES_PER_WORD - 1) / MOVES_PER_WORD;
+		for (int w = 0; w < words; w++) {
+			out.writeLong(moves[w]);
+		}
+	}
+
+	/**
+	 * Read a record written by {@code writeTo}.
+	 * @param in the source.
+	 * @return the read record.
+	 * @throws IOException if the source fails, ends early or does not hold a record.
+	 */
+	public static GameRecord readFrom(DataInput in) throws IOException {
+		int typeOrdinal = in.readByte();
+		if (typeOrdinal < 0 || typeOrdinal >= MazeType.values().length) {
+			throw new IOException("Unknown maze type " + typeOrdinal + " in the record.");
+		}
+		MazeType type = MazeType.values()[typeOrdinal];
+		int numOfRows = in.readInt();
+		int numOfCols = in.readInt();
+		int numOfRemainingWalls = in.readInt();
+		Location start = new Location(in.readInt(), in.readInt());
+		Location goal = new Location(in.readInt(), in.readInt());
+		long seed = in.readLong();
+		double goldCoinDensity = in.readDouble();
+		double thiefDensity = in.readDouble();
+		GameRecord record = new GameRecord(type, numOfRows, numOfCols, numOfRemainingWalls, start, goal, seed,
+				goldCoinDensity, thiefDensity);
+		int numOfMoves = in.readInt();
+		if (numOfMoves < 0) {
+			throw new IOException("Negative number of moves " + numOfMoves + " in the record.");
+		}
+		int words = (int) (((long) numOfMoves + MOVES_PER_WORD - 1) / MOVES_PER_WORD);
+		// The array grows with the words actually read, so a corrupt count ends in an EOFException once the source is
+		// exhausted, instead of allocating for the count up front.
+		long[] moves = new long[Math.max(Math.min(words, READ_CHUNK_WORDS), 4)];
+		for (int w = 0; w < words; w++) {
+			if (w == moves.length) {
+				moves = Arrays.copyOf(moves, (int) Math.min((long) moves.length * 2, words));
+			}
+			moves[w] = in.readLong();
+		}
+		record.moves = moves;
+		record.numOfMoves = numOfMoves;
+		return record;
+	}
+
+	@Override
+	public String toString() {
+		return type + " maze " + numOfRows + "x" + numOfCols + " seed " + seed + ", " + numOfMoves + " moves";
+	}
+
+	/**
+	 * Unpack {@code len} moves starting at move {@code from} into the buffer.
+	 * @param from the index of the first move.
+	 * @param buffer the destination, one ordinal per byte.
+	 * @param len number of moves to unpack.
+	 */
+	private void unpack(int from, byte[] buffer, int len) {
+		for (int k = 0; k < len; k++) {
+			int m = from + k;
+			buffer[k] = (byte) ((moves[m / MOVES_PER_WORD] >>> ((m % MOVES_PER_WORD) * 2)) & 3);
+		}
+	}
+}
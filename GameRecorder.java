@@ -0,0 +1,234 @@
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The {@code GameRecorder} class is a {@code Maze} which records the game played on it. It generates a seeded maze,
+ * forwards every call to it and appends each applied move to a {@code GameRecord}. Blocked moves and moves after the
+ * game is over change nothing, so they are not recorded.
+ */
+public final class GameRecorder implements Maze {
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final Maze maze;
+	private final GameRecord record;
+
+	/**
+	 * Constructs a {@code GameRecorder} object on a newly generated maze with a random seed.
+	 *
+	 * @param type the type of the maze.
+	 * @param numOfRows number of rows in the maze.
+	 * @param numOfCols number of columns in the maze.
+	 * @param numOfRemainingWalls number of remaining walls in the maze. Ignored by the perfect maze.
+	 * @param startLocation starting point in the maze.
+	 * @param goalLocation goal point in the maze.
+	 */
+	public GameRecorder(MazeType type, int numOfRows, int numOfCols, int numOfRemainingWalls, Location startLocation,
+	                    Location goalLocation) {
+		this(type, numOfRows, numOfCols, numOfRemainingWalls, startLocation, goalLocation, new Random().nextLong());
+	}
+
+	/**
+	 * Constructs a {@code GameRecorder} object on a newly generated maze with the given seed.
+	 *
+	 * @param type the type of the maze.
+	 * @param numOfRows number of rows in the maze.
+	 * @param numOfCols number of columns in the maze.
+	 * @param numOfRemainingWalls number of remaining walls in the maze. Ignored by the perfect maze.
+	 * @param startLocation starting point in the maze.
+	 * @param goalLocation goal point in the maze.
+	 * @param seed seed of the random generator used by the generation.
+	 */
+	public GameRecorder(MazeType type, int numOfRows, int numOfCols, int numOfRemainingWalls, Location startLocation,
+	                    Location goalLocation, long seed) {
+		this(new GameRecord(type, numOfRows, numOfCols, numOfRemainingWalls, startLocation, goalLocation, seed));
+	}
+
+	/**
+	 * Constructs a {@code GameRecorder} object on a newly generated maze with the given seed and item densities. The
+	 * densities are recorded, so a replay rebuilds the same items.
+	 *
+	 * @param type the type of the maze.
+	 * @param numOfRows number of rows in the maze.
+	 * @param numOfCols number of columns in the maze.
+	 * @param numOfRemainingWalls number of remaining walls in the maze. Ignored by the perfect maze.
+	 * @param startLocation starting point in the maze.
+	 * @param goalLocation goal point in the maze.
+	 * @param seed seed of the random generator used by the generation.
+	 * @param goldCoinDensity share of the cells holding a gold coin, from 0 to 1.
+	 * @param thiefDensity share of the cells holding a thief, from 0 to 1.
+	 */
+	public GameRecorder(MazeType type, int numOfRows, int numOfCols, int numOfRemainingWalls, Location startLocation,
+	                    Location goalLocation, long seed, double goldCoinDensity, double thiefDensity) {
+		this(new GameRecord(type, numOfRows, numOfCols, numOfRemainingWalls, startLocation, goalLocation, seed,
+				goldCoinDensity, thiefDensity));
+	}
+
+	/**
+	 * Constructs a {@code GameRecorder} object on the maze rebuilt from an empty record.
+	 *
+	 * @param record the record to append the moves to. Must not contain any move yet.
+	 */
+	private GameRecorder(GameRecord record) {
+		this(record.rebuildMaze(), record);
+	}
+
+	/**
+	 * Constructs a {@code GameRecorder} object on a maze which is already generated, for example a
+	 * {@code MazeSession} on a shared {@code MazeLayout}.
+	 *
+	 * @param maze the maze to play on. The player must stand on the starting point.
+	 * @param record the empty record matching the maze.
+	 */
+	GameRecorder(Maze maze, GameRecord record) {
+		this.maze = maze;
+		this.record = record;
+	}
+
+	/**
+	 * Get the record of the game played so far. The record keeps growing while the game goes on.
+	 * @return the {@code GameRecord} of this game.
+	 */
+	public GameRecord getRecord() {
+		return this.record;
+	}
+
+	@Override
+	public Location getGoalLocation() {
+		return maze.getGoalLocation();
+	}
+
+	@Override
+	public Location getPlayerLocation() {
+		return maze.getPlayerLocation();
+	}
+
+	@Override
+	public int getPlayerGoldCount() {
+		return maze.getPlayerGoldCount();
+	}
+
+	@Override
+	public String printPlayerStatus() {
+		return maze.printPlayerStatus();
+	}
+
+	@Override
+	public String printNextPossibleMove() {
+		return maze.printNextPossibleMove();
+	}
+
+	@Override
+	public void movePlayer(Direction playerDirectionInput) {
+		if (tryMove(playerDirectionInput) == MoveStatus.BLOCKED) {
+			throw new IllegalArgumentException("Player can not move to this direction " + playerDirectionInput +
+					". A wall stands at this direction.");
+		}
+	}
+
+	@Override
+	public int tryMove(Direction playerDirectionInput) {
+		int status = maze.tryMove(playerDirectionInput);
+		if (status == MoveStatus.MOVED) {
+			record.append(playerDirectionInput);
+		}
+		return status;
+	}
+
+	@Override
+	public int moveSequence(Direction[] route) {
+		int applied = maze.moveSequence(route);
+		for (int k = 0; k < applied; k++) {
+			record.append(route[k]);
+		}
+		return applied;
+	}
+
+	@Override
+	public int moveSequence(byte[] route) {
+		return moveSequence(route, 0, route.length);
+	}
+
+	@Override
+	public int moveSequence(byte[] route, int from, int to) {
+		int stop = maze.moveSequence(route, from, to);
+		for (int k = from; k < stop; k++) {
+			record.append(DIRECTIONS[route[k]]);
+		}
+		return stop;
+	}
+
+	@Override
+	public List<List<Location>> getWallsLocation() {
+		return maze.getWallsLocation();
+	}
+
+	@Override
+	public List<Location> getGoldCoinLocation() {
+		return maze.getGoldCoinLocation();
+	}
+
+	@Override
+	public List<Location> getThiefLocation() {
+		return maze.getThiefLocation();
+	}
+
+	@Override
+	public Location getStartLocation() {
+		return maze.getStartLocation();
+	}
+
+	@Override
+	public boolean isGameOver() {
+		return maze.isGameOver();
+	}
+
+	@Override
+	public int countRemainedWalls() {
+		return maze.countRemainedWalls();
+	}
+
+	@Override
+	public List<Location> getSolveLocation() {
+		return maze.getSolveLocation();
+	}
+
+	@Override
+	public String printRegion(int fromI, int fromJ, int toI, int toJ) {
+		return maze.printRegion(fromI, fromJ, toI, toJ);
+	}
+
+	@Override
+	public int getNumOfRows() {
+		return maze.getNumOfRows();
+	}
+
+	@Override
+	public int getNumOfCols() {
+		return maze.getNumOfCols();
+	}
+
+	@Override
+	public int[] getSolveCellIDs() {
+		return maze.getSolveCellIDs();
+	}
+
+	@Override
+	public int[] getGoldCoinCellIDs() {
+		return maze.getGoldCoinCellIDs();
+	}
+
+	@Override
+	public int[] getThiefCellIDs() {
+		return maze.getThiefCellIDs();
+	}
+
+	@Override
+	public int[] getWallEndpointIDs() {
+		return maze.getWallEndpointIDs();
+	}
+
+	@Override
+	public String toString() {
+		return maze.toString();
+	}
+}
@@ -0,0 +1,176 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code GameSession} class represents one game played through the text protocol of {@code MazeServer}. Like
+ * {@code Controller} does for the keyboard, it turns each command line into calls on a {@code Maze} and turns the
+ * game status into the response. Every game is played on a {@code GameRecorder}, so it can be replayed later.
+ * Games created with an explicit seed play on a {@code MazeSession} of a layout shared by every game with the same
+ * arguments, so many clients on the same maze only pay for one grid. A session is used by one connection thread only.
+ *
+ * Commands (one per line, case-insensitive):
+ * NEW perfect|room|wrap numOfRows numOfCols startI startJ goalI goalJ numOfRemainingWalls [seed]
+ * MOVE route        the route is a string of N/S/E/W, one letter per step, e.g. MOVE NNEESW
+ * STATUS
+ * RENDER fromI fromJ toI toJ
+ * METRICS           the process-wide {@code MazeMetrics} report
+ * QUIT
+ * Each response is one line starting with OK, BLOCKED, ERR or BYE. RENDER and METRICS answer their lines then END.
+ *
+ * Every session shares the server, so NEW refuses mazes of more cells than the system property
+ * {@code maze.server.maxCells}, 40000 by default, for example {@code -Dmaze.server.maxCells=1000000}.
+ */
+final class GameSession {
+	private static final int MAX_SHARED_LAYOUTS = 64;
+	private static final long MAX_CELLS = Long.getLong("maze.server.maxCells", 40_000);
+	private static final Map<String, MazeLayout> SHARED_LAYOUTS = new ConcurrentHashMap<>();
+
+	private GameRecorder maze;
+	private byte[] routeBuffer = new byte[64];
+	private boolean closed = false;
+
+	/**
+	 * Handle one command line.
+	 * @param line the command line received from the client.
+	 * @return the response to send back, without the trailing line break.
+	 */
+	String handle(String line) {
+		String[] args = line.trim().split("\\s+");
+		try {
+			return switch (args[0].toUpperCase()) {
+				case "NEW" -> newMaze(args);
+				case "MOVE" -> move(args);
+				case "STATUS" -> status();
+				case "RENDER" -> render(args);
+				case "METRICS" -> MazeMetrics.report() + "END";
+				case "QUIT" -> quit();
+				default -> "ERR unknown command " + args[0];
+			};
+		} catch (RuntimeException e) {
+			// A bad command only fails itself: the connection and the other sessions keep going.
+			return "ERR " + String.valueOf(e.getMessage()).trim();
+		}
+	}
+
+	/**
+	 * Whether the client asked to end this session.
+	 * @return true after QUIT.
+	 */
+	boolean isClosed() {
+		return this.closed;
+	}
+
+	private String newMaze(String[] args) {
+		if (args.length != 9 && args.length != 10) {
+			throw new IllegalArgumentException("usage: NEW perfect|room|wrap rows cols startI startJ goalI goalJ walls"
+					+ " [seed]");
+		}
+		MazeType type = switch (args[1].toLowerCase()) {
+			case "perfect" -> MazeType.PERFECT;
+			case "room" -> MazeType.ROOM;
+			case "wrap" -> MazeType.WRAP_ROOM;
+			default -> throw new IllegalArgumentException("Unsupported maze type " + args[1]);
+		};
+		int[] values = new int[7];
+		for (int k = 0; k < values.length; k++) {
+			values[k] = Integer.parseInt(args[k + 2]);
+		}
+		if ((long) values[0] * values[1] > MAX_CELLS) {
+			throw new IllegalArgumentException("A maze of " + values[0] + " x " + values[1]
+					+ " is larger than the limit of " + MAX_CELLS + " cells.");
+		}
+		Location start = new Location(values[2], values[3]);
+		Location goal = new Location(values[4], values[5]);
+		if (args.length == 10) {
+			GameRecord record = new GameRecord(type, values[0], values[1], values[6], start, goal,
+					Long.parseLong(args[9]));
+			String key = type + Arrays.toString(values) + args[9];
+			maze = new GameRecorder(sharedLayout(key, record).newSession(), record);
+		} else {
+			maze = new GameRecorder(type, values[0], values[1], values[6], start, goal);
+		}
+		return "OK seed=" + maze.getRecord().getSeed();
+	}
+
+	/**
+	 * Find the shared layout of the maze described by the key, generating it on first use. The layout is generated
+	 * outside the map, so no lock is held meanwhile; if two sessions generate the same key at once, the first layout
+	 * stored is kept by both. When too many layouts are cached, an arbitrary other one is dropped; sessions already
+	 * playing on it keep their reference.
+	 * @param key the maze type, arguments and seed.
+	 * @param record an empty record of the maze, used to generate it.
+	 * @return the shared layout.
+	 */
+	private static MazeLayout sharedLayout(String key, GameRecord record) {
+		MazeLayout layout = SHARED_LAYOUTS.get(key);
+		if (layout == null) {
+			MazeLayout generated = new MazeLayout(record.rebuildMaze());
+			layout = SHARED_LAYOUTS.putIfAbsent(key, generated);
+			if (layout == null) {
+				layout = generated;
+			}
+			Iterator<String> keys = SHARED_LAYOUTS.keySet().iterator();
+			while (SHARED_LAYOUTS.size() > MAX_SHARED_LAYOUTS && keys.hasNext()) {
+				String other = keys.next();
+				if (!other.equals(key)) {
+					keys.remove();
+				}
+			}
+		}
+		return layout;
+	}
+
+	private String move(String[] args) {
+		requireMaze();
+		if (args.length != 2) {
+			throw new IllegalArgumentException("usage: MOVE route");
+		}
+		String route = args[1];
+		if (routeBuffer.length < route.length()) {
+			routeBuffer = new byte[Math.max(route.length(), routeBuffer.length * 2)];
+		}
+		for (int k = 0; k < route.length(); k++) {
+			routeBuffer[k] = (byte) switch (route.charAt(k)) {
+				case 'N', 'n' -> Direction.NORTH.ordinal();
+				case 'S', 's' -> Direction.SOUTH.ordinal();
+				case 'E', 'e' -> Direction.EAST.ordinal();
+				case 'W', 'w' -> Direction.WEST.ordinal();
+				default -> throw new IllegalArgumentException("Unsupported direction " + route.charAt(k));
+			};
+		}
+		int applied = maze.moveSequence(routeBuffer, 0, route.length());
+		return (applied == route.length() ? "OK" : "BLOCKED") + " applied=" + applied + " " + describe();
+	}
+
+	private String status() {
+		requireMaze();
+		return "OK " + describe();
+	}
+
+	private String render(String[] args) {
+		requireMaze();
+		if (args.length != 5) {
+			throw new IllegalArgumentException("usage: RENDER fromI fromJ toI toJ");
+		}
+		return maze.printRegion(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+				Integer.parseInt(args[4])) + "END";
+	}
+
+	private String quit() {
+		closed = true;
+		return "BYE";
+	}
+
+	private String describe() {
+		Location l = maze.getPlayerLocation();
+		return "at=" + l.getI() + "," + l.getJ() + " gold=" + maze.getPlayerGoldCount() + " over=" + maze.isGameOver();
+	}
+
+	private void requireMaze() {
+		if (maze == null) {
+			throw new IllegalStateException("No maze in this session. Send NEW first.");
+		}
+	}
+}
@@ -11,7 +11,13 @@
 import java.util.*;
 import java.util.List;
 
-abstract class GeneralMaze implements Maze {
+abstract class GeneralMaze implements Maze, MazePrinter.Grid {
+	private static final Direction[] DIRECTIONS = Direction.values(); // values() clones the array on every call.
+	// Recount the live counters from the grid after generation and every move, see verifyCounters.
+	private static final boolean VERIFY_COUNTERS = Boolean.getBoolean("maze.verifyCounters");
+	private static final int UNREACHABLE = Integer.MAX_VALUE;
+	private static final SolveStrategy SOLVE_STRATEGY = SolveStrategy.fromProperty();
+	private static final GenerationStrategy GENERATION_STRATEGY = GenerationStrategy.fromProperty();
 	protected final int numOfRows;
 	protected final int numOfCols;
 	protected final int numOfRemainingWalls;
@@ -20,9 +26,29 @@ abstract class GeneralMaze implements Maze {
 	protected final Player player;
 	private final Location startLocation;
 	private final Location goalLocation;
-	private final List<Location> thiefLocation;
-	private final List<List<Location>> wallsLocation;
-	private final List<Location> solveLocation;
+	// Derived views, computed on first use. Guarded by derivedStateLock and published through the volatile writes.
+	private final Object derivedStateLock = new Object();
+	private volatile List<Location> thiefLocation;
+	private volatile List<List<Location>> wallsLocation;
+	private volatile List<Location> solveLocation;
+	private volatile int[] solveCellIDs;
+	private final long seed;
+	private final Random random;
+	private final double goldCoinDensity; // share of the cells holding a gold coin, rounded up.
+	private final double thiefDensity;
+	// Live counters, kept up to date by every tear down, item placement and gold pickup.
+	private int numOfWalls;
+	private int numOfGoldCoins;
+	private int numOfThieves;
+	// Distance in steps from every cell to the goal. Built on first use and then repaired by each wall change.
+	private int[] goalDistance;
+	// Set by the first removeWall or addWall which changes a wall. From then on the path follows goalDistance.
+	private boolean isWallChanged = false;
+	// Scratch space of the searches run by wall changes, allocated once so a change does not cost O(numOfCells).
+	private int[] searchMark;
+	private int searchStamp;
+	private int[] searchQueue;
+	private int[] otherSearchQueue;
 
 	/**
 	 * Initialize the abstract GeneralMaze. Create the grid and a player in the maze.
@@ -33,6 +59,8 @@ abstract class GeneralMaze implements Maze {
 	 * @param startLocation       starting point in the maze.
 	 * @param goalLocation        goal point in the maze.
 	 * @throws IllegalArgumentException {@code numOfRows} and {@code numOfCols} is 0 or negative.
+	 * @throws IllegalArgumentException {@code numOfRows} and {@code numOfCols} are so large the wall count overflows
+	 *                                  an int.
 	 * @throws IllegalArgumentException {@code numOfRemainingWalls} is not in the bound.
 	 * @throws IllegalArgumentException {@code startLocation} and {@code startLocation} is not inside the maze grid.
 	 */
@@ -41,11 +69,74 @@ abstract class GeneralMaze implements Maze {
 	                      int numOfRemainingWalls,
 	                      Location startLocation,
 	                      Location goalLocation) {
+		this(numOfRows, numOfCols, numOfRemainingWalls, startLocation, goalLocation, new Random().nextLong());
+	}
+
+	/**
+	 * Initialize the abstract GeneralMaze with a seed. Every random choice of the generation (torn down walls, gold
+	 * coins and thieves) is drawn from this seed, so the same arguments always generate the same maze.
+	 *
+	 * @param numOfRows           number of rows in the maze. Must be positive.
+	 * @param numOfCols           number of columns in the maze. Must be positive.
+	 * @param numOfRemainingWalls number of remaining walls in the maze.
+	 * @param startLocation       starting point in the maze.
+	 * @param goalLocation        goal point in the maze.
+	 * @param seed                seed of the random generator used by the generation.
+	 * @throws IllegalArgumentException {@code numOfRows} and {@code numOfCols} is 0 or negative.
+	 * @throws IllegalArgumentException {@code numOfRows} and {@code numOfCols} are so large the wall count overflows
+	 *                                  an int.
+	 * @throws IllegalArgumentException {@code numOfRemainingWalls} is not in the bound.
+	 * @throws IllegalArgumentException {@code startLocation} and {@code startLocation} is not inside the maze grid.
+	 */
+	protected GeneralMaze(int numOfRows,
+	                      int numOfCols,
+	                      int numOfRemainingWalls,
+	                      Location startLocation,
+	                      Location goalLocation,
+	                      long seed) {
+		this(numOfRows, numOfCols, numOfRemainingWalls, startLocation, goalLocation, seed, Parameters.GOLD_COIN_PERCENT,
+				Parameters.THIEF_PERCENT);
+	}
+
+	/**
+	 * Initialize the abstract GeneralMaze with a seed and item densities. When the densities ask for more items than
+	 * there are cells besides the starting point and the goal location, the gold coins fill the cells first and the
+	 * thieves take what is left.
+	 *
+	 * @param numOfRows           number of rows in the maze. Must be positive.
+	 * @param numOfCols           number of columns in the maze. Must be positive.
+	 * @param numOfRemainingWalls number of remaining walls in the maze.
+	 * @param startLocation       starting point in the maze.
+	 * @param goalLocation        goal point in the maze.
+	 * @param seed                seed of the random generator used by the generation.
+	 * @param goldCoinDensity     share of the cells holding a gold coin, from 0 to 1.
+	 * @param thiefDensity        share of the cells holding a thief, from 0 to 1.
+	 * @throws IllegalArgumentException {@code numOfRows} and {@code numOfCols} is 0 or negative.
+	 * @throws IllegalArgumentException {@code numOfRows} and {@code numOfCols} are so large the wall count overflows
+	 *                                  an int.
+	 * @throws IllegalArgumentException {@code numOfRemainingWalls} is not in the bound.
+	 * @throws IllegalArgumentException {@code startLocation} and {@code startLocation} is not inside the maze grid.
+	 * @throws IllegalArgumentException {@code goldCoinDensity} or {@code thiefDensity} is not between 0 and 1.
+	 */
+	protected GeneralMaze(int numOfRows,
+	                      int numOfCols,
+	                      int numOfRemainingWalls,
+	                      Location startLocation,
+	                      Location goalLocation,
+	                      long seed,
+	                      double goldCoinDensity,
+	                      double thiefDensity) {
 		if (numOfRows <= 0 || numOfCols <= 0) {
 			throw new IllegalArgumentException("NumOfRows " + numOfRows + " and NumOfCols " + numOfCols +
 					" must be positive!\n");
 		}
 
+		// The cell IDs and the wall count are ints, larger grids go to OffHeapGrid.
+		if (2L * numOfRows * numOfCols + numOfRows + numOfCols > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("A maze of " + numOfRows + " x " + numOfCols + " cells is too large, " +
+					"use OffHeapGrid instead.\n");
+		}
+
 		if (!isNumOfRemainingWallsValid(numOfRows, numOfCols, numOfRemainingWalls)) {
 			throw new IllegalArgumentException("NumOfRemainingWalls " + numOfRemainingWalls + " is out of range!\n");
 		}
@@ -58,18 +149,27 @@ abstract class GeneralMaze implements Maze {
 			throw new IllegalArgumentException("Goal location " + goalLocation + " is not inside the maze grid.\n");
 		}
 
+		if (!(goldCoinDensity >= 0 && goldCoinDensity <= 1 && thiefDensity >= 0 && thiefDensity <= 1)) {
+			throw new IllegalArgumentException("GoldCoinDensity " + goldCoinDensity + " and thiefDensity " +
+					thiefDensity + " must be between 0 and 1!\n");
+		}
+
 		this.numOfRows = numOfRows;
 		this.numOfCols = numOfCols;
 		this.numOfRemainingWalls = numOfRemainingWalls;
 		this.numOfCells = numOfRows * numOfCols;
 		this.startLocation = startLocation;
 		this.goalLocation = goalLocation;
+		this.seed = seed;
+		this.random = new Random(seed);
+		this.goldCoinDensity = goldCoinDensity;
+		this.thiefDensity = thiefDensity;
+		this.numOfWalls = calculateTotalWalls();
 		this.grid = generateGrid();
 		this.player = new PlayerImpl(new Location(startLocation.getI(), startLocation.getJ()));
-		this.thiefLocation = generateThiefLocation();
-		this.wallsLocation = generateWallsLocation();
-//		this.solvePlayer = new PlayerImpl(new Location(startLocation.getI(), startLocation.getJ()));
-		this.solveLocation = solveByDfs();
+		if (VERIFY_COUNTERS) {
+			verifyCounters();
+		}
 	}
 
 	@Override
@@ -99,20 +199,85 @@ abstract class GeneralMaze implements Maze {
 
 	@Override
 	public void movePlayer(Direction playerDirectionInput) {
-		if (isGameOver()) {
-			return;
-		}
-		if (!produceNextPossibleMove().contains(playerDirectionInput)) {
+		if (tryMove(playerDirectionInput) == MoveStatus.BLOCKED) {
 			throw new IllegalArgumentException("Player can not move to this direction " + playerDirectionInput +
 					". A wall stands at this direction.");
 		}
+	}
+
+	@Override
+	public int tryMove(Direction playerDirectionInput) {
+		if (!MazeEvents.PER_MOVE) {
+			return applyMove(playerDirectionInput);
+		}
+		MazeEvents.Move event = new MazeEvents.Move();
+		event.begin();
+		long start = MazeMetrics.start();
+		int status = applyMove(playerDirectionInput);
+		MazeMetrics.MOVE.stop(start);
+		event.end();
+		if (event.shouldCommit()) {
+			event.status = status;
+			event.commit();
+		}
+		return status;
+	}
+
+	/**
+	 * Move the player if no wall stands at the direction and refresh the maze status.
+	 * @param playerDirectionInput a {@code Direction} which player tries to move to.
+	 * @return one of the {@code MoveStatus} codes.
+	 */
+	private int applyMove(Direction playerDirectionInput) {
+		if (isGameOver()) {
+			return MoveStatus.GAME_OVER;
+		}
+		Location l = player.getLocation();
+		if (grid.get(l.getI()).get(l.getJ()).hasWall(playerDirectionInput)) {
+			return MoveStatus.BLOCKED;
+		}
 		movePlayerToNextCell(playerDirectionInput);
 		updatePlayerAndGridAfterGoldCollection();
+		if (VERIFY_COUNTERS) {
+			verifyCounters();
+		}
+		return MoveStatus.MOVED;
+	}
+
+	@Override
+	public int moveSequence(Direction[] route) {
+		MazeEvents.MoveSequence event = new MazeEvents.MoveSequence();
+		event.begin();
+		long start = MazeMetrics.start();
+		int applied = route.length;
+		for (int k = 0; k < route.length; k++) {
+			if (applyMove(route[k]) != MoveStatus.MOVED) {
+				applied = k;
+				break;
+			}
+		}
+		event.finish(start, route.length, applied);
+		return applied;
+	}
+
+	@Override
+	public int moveSequence(byte[] route) {
+		return moveSequence(route, 0, route.length);
 	}
 
 	@Override
 	public List<List<Location>> getWallsLocation() {
-		return this.wallsLocation;
+		List<List<Location>> walls = this.wallsLocation;
+		if (walls == null) {
+			synchronized (derivedStateLock) {
+				walls = this.wallsLocation;
+				if (walls == null) {
+					walls = generateWallsLocation();
+					this.wallsLocation = walls;
+				}
+			}
+		}
+		return walls;
 	}
 
 	@Override
@@ -131,7 +296,17 @@ abstract class GeneralMaze implements Maze {
 
 	@Override
 	public List<Location> getThiefLocation() {
-		return this.thiefLocation;
+		List<Location> thieves = this.thiefLocation;
+		if (thieves == null) {
+			synchronized (derivedStateLock) {
+				thieves = this.thiefLocation;
+				if (thieves == null) {
+					thieves = generateThiefLocation();
+					this.thiefLocation = thieves;
+				}
+			}
+		}
+		return thieves;
 	}
 
 	@Override
@@ -146,81 +321,763 @@ abstract class GeneralMaze implements Maze {
 
 	@Override
 	public int countRemainedWalls() {
-		int count = 0;
+		return this.numOfWalls;
+	}
+
+	/**
+	 * Count the gold coins which have not been picked up yet.
+	 * @return the number of remaining gold coins.
+	 */
+	public int countRemainedGoldCoins() {
+		return this.numOfGoldCoins;
+	}
+
+	/**
+	 * Count the thieves in the maze.
+	 * @return the number of thieves.
+	 */
+	public int countThieves() {
+		return this.numOfThieves;
+	}
+
+	/**
+	 * Count the cells which contain neither a gold coin nor a thief.
+	 * @return the number of empty cells.
+	 */
+	public int countEmptyCells() {
+		return this.numOfCells - this.numOfGoldCoins - this.numOfThieves;
+	}
+
+	/**
+	 * Recount the walls, gold coins and thieves by scanning the grid, and compare them with the live counters.
+	 * Enabled after generation and every move with {@code -Dmaze.verifyCounters=true}.
+	 * @throws IllegalStateException if a live counter does not match the grid.
+	 */
+	public void verifyCounters() {
+		int walls = 0;
+		int goldCoins = 0;
+		int thieves = 0;
 		for(int i = 0; i < numOfRows; i++) {
 			for(int j = 0; j < numOfCols; j++) {
 				Cell c = grid.get(i).get(j);
-				if (c.getWalls().get(Direction.NORTH)) {
-					count++;
+				if (c.hasWall(Direction.NORTH)) {
+					walls++;
 				}
-				if (c.getWalls().get(Direction.WEST)) {
-					count++;
+				if (c.hasWall(Direction.WEST)) {
+					walls++;
 				}
-				if (i == numOfRows - 1 && c.getWalls().get(Direction.SOUTH)) {
-					count++;
+				if (i == numOfRows - 1 && c.hasWall(Direction.SOUTH)) {
+					walls++;
 				}
-				if (j == numOfCols - 1 && c.getWalls().get(Direction.EAST)) {
-					count++;
+				if (j == numOfCols - 1 && c.hasWall(Direction.EAST)) {
+					walls++;
+				}
+				if (c.getHasGoldCoin()) {
+					goldCoins++;
+				}
+				if (c.getHasThief()) {
+					thieves++;
 				}
 			}
 		}
-		return count;
+		if (walls != numOfWalls || goldCoins != numOfGoldCoins || thieves != numOfThieves) {
+			throw new IllegalStateException("Counters (walls " + numOfWalls + ", gold coins " + numOfGoldCoins +
+					", thieves " + numOfThieves + ") do not match the grid (walls " + walls + ", gold coins " +
+					goldCoins + ", thieves " + thieves + ").");
+		}
+	}
+
+	/**
+	 * Tear down a wall while the game is played. For Wrap-Maze, a border wall is torn down together with the border
+	 * wall facing it on the `wrap` side. The distances to the goal are repaired from the two cells outward, only as far
+	 * as they get shorter, and the solved path becomes the shortest path along them.
+	 * Like a move, a wall change must not run concurrently with any other call on this maze.
+	 * @param ID the ID of a cell.
+	 * @param d the {@code Direction} of the wall in this cell.
+	 * @return true if the wall is torn down, false if no wall stands at direction d.
+	 * @throws IllegalArgumentException if the wall is on the border of a non-wrap maze.
+	 */
+	public boolean removeWall(int ID, Direction d) {
+		checkChangeableWall(ID, d);
+		if (!cellAt(ID).hasWall(d)) {
+			return false;
+		}
+		int[] distance = goalDistance();
+		int nextID = nextCellID(ID, d);
+		cellAt(ID).tearDownWall(d);
+		cellAt(nextID).tearDownWall(opposite(d));
+		decreaseWallCount(isBorderWall(ID, d) ? 2 : 1);
+		repairDistancesAfterRemoval(distance, ID, nextID);
+		isWallChanged = true;
+		invalidateDerivedState();
+		return true;
+	}
+
+	/**
+	 * Build a wall while the game is played. For Wrap-Maze, a border wall is built together with the border wall
+	 * facing it on the `wrap` side. A wall which would disconnect the starting point from the goal location is
+	 * rejected. The distances to the goal are repaired only for the cells whose shortest path went through the wall.
+	 * Like a move, a wall change must not run concurrently with any other call on this maze.
+	 * @param ID the ID of a cell.
+	 * @param d the {@code Direction} of the wall in this cell.
+	 * @return true if the wall is built, false if a wall already stands at direction d or if the wall is rejected.
+	 * @throws IllegalArgumentException if the wall is on the border of a non-wrap maze.
+	 */
+	public boolean addWall(int ID, Direction d) {
+		checkChangeableWall(ID, d);
+		if (cellAt(ID).hasWall(d)) {
+			return false;
+		}
+		int[] distance = goalDistance();
+		int nextID = nextCellID(ID, d);
+		cellAt(ID).buildWall(d);
+		cellAt(nextID).buildWall(opposite(d));
+		if (!isGoalStillReachable(distance, ID, nextID)) {
+			cellAt(ID).tearDownWall(d);
+			cellAt(nextID).tearDownWall(opposite(d));
+			return false;
+		}
+		decreaseWallCount(isBorderWall(ID, d) ? -2 : -1);
+		repairDistancesAfterAddition(distance, ID, nextID);
+		isWallChanged = true;
+		invalidateDerivedState();
+		return true;
+	}
+
+	/**
+	 * Get the number of steps of the shortest path from a cell to the goal location. The distances are computed once
+	 * and then kept up to date by {@code removeWall} and {@code addWall}.
+	 * @param ID the ID of a cell.
+	 * @return the distance to the goal, or -1 if the goal cannot be reached from this cell.
+	 */
+	public int distanceToGoal(int ID) {
+		int distance = goalDistance()[ID];
+		return distance == UNREACHABLE ? -1 : distance;
 	}
 
 	@Override
 	public List<Location> getSolveLocation() {
-		return this.solveLocation;
+		List<Location> solve = this.solveLocation;
+		if (solve == null) {
+			synchronized (derivedStateLock) {
+				solve = this.solveLocation;
+				if (solve == null) {
+					solve = cellIDsToLocations(solve());
+					this.solveLocation = solve;
+				}
+			}
+		}
+		return solve;
+	}
+
+	/**
+	 * Get the solution path, solving the maze on first use. Later calls return the same memoized array.
+	 * @return the cell IDs of the solution path from the goal location back to the starting point. Must not be
+	 * modified.
+	 */
+	private int[] solve() {
+		int[] IDs = this.solveCellIDs;
+		if (IDs == null) {
+			synchronized (derivedStateLock) {
+				IDs = this.solveCellIDs;
+				if (IDs == null) {
+					// Once the walls have changed, the path follows the goal distances, which are kept up to date. A
+					// read-only distanceToGoal query builds them too, but must not change the path.
+					if (isWallChanged) {
+						IDs = solveByGoalDistance();
+					} else if (SOLVE_STRATEGY == SolveStrategy.DEAD_END_FILLING) {
+						IDs = DeadEndFiller.solve(getWallMasks(), numOfRows, numOfCols, getStartCellID(),
+								getGoalCellID());
+					} else {
+						IDs = solveByDfs();
+					}
+					this.solveCellIDs = IDs;
+				}
+			}
+		}
+		return IDs;
+	}
+
+	/**
+	 * Get a snapshot of the walls of every cell. The array is indexed by cell ID and bit {@code d.ordinal()} of an
+	 * element is set when a wall stands at {@code Direction} d of that cell.
+	 * @return a newly allocated array of numOfCells wall masks.
+	 */
+	public byte[] getWallMasks() {
+		byte[] masks = new byte[numOfCells];
+		for (int i = 0; i < numOfRows; i++) {
+			List<Cell> cells = grid.get(i);
+			for (int j = 0; j < numOfCols; j++) {
+				int mask = 0;
+				for (Direction d : DIRECTIONS) {
+					if (cells.get(j).hasWall(d)) {
+						mask |= 1 << d.ordinal();
+					}
+				}
+				masks[MazeHelper.idxToID(i, j, numOfCols)] = (byte) mask;
+			}
+		}
+		return masks;
+	}
+
+	/**
+	 * Get the seed this maze was generated from. Passing it back to the constructor generates the same maze.
+	 * @return the seed of the generation.
+	 */
+	public long getSeed() {
+		return this.seed;
+	}
+
+	@Override
+	public int moveSequence(byte[] route, int from, int to) {
+		MazeEvents.MoveSequence event = new MazeEvents.MoveSequence();
+		event.begin();
+		long start = MazeMetrics.start();
+		int stop = to;
+		for (int k = from; k < to; k++) {
+			if (applyMove(DIRECTIONS[route[k]]) != MoveStatus.MOVED) {
+				stop = k;
+				break;
+			}
+		}
+		event.finish(start, to - from, stop - from);
+		return stop;
+	}
+
+	@Override
+	public int getNumOfRows() {
+		return this.numOfRows;
+	}
+
+	@Override
+	public int getNumOfCols() {
+		return this.numOfCols;
 	}
 
-	private List<Location> solveByDfs() {
-		List<Location> pathFromStartToGoal = new ArrayList<>();
+	@Override
+	public boolean hasWall(int ID, Direction d) {
+		return cellAt(ID).hasWall(d);
+	}
 
-		Set<Location> seen = new HashSet<>();
+	@Override
+	public boolean hasGoldCoin(int ID) {
+		return cellAt(ID).getHasGoldCoin();
+	}
 
-		dfs(startLocation.getI(), startLocation.getJ(), seen, pathFromStartToGoal);
+	@Override
+	public boolean hasThief(int ID) {
+		return cellAt(ID).getHasThief();
+	}
 
-		return pathFromStartToGoal;
+	@Override
+	public int getPlayerCellID() {
+		return MazeHelper.LocationToID(player.getLocation(), numOfCols);
 	}
 
-	private boolean dfs(int i, int j, Set<Location> seen, List<Location> path) {
-		Location l = new Location(i, j);
-		if (l.equals(goalLocation)) {
-			path.add(l);
-			return true;
+	@Override
+	public int getStartCellID() {
+		return MazeHelper.LocationToID(startLocation, numOfCols);
+	}
+
+	@Override
+	public int getGoalCellID() {
+		return MazeHelper.LocationToID(goalLocation, numOfCols);
+	}
+
+	@Override
+	public int[] getSolveCellIDs() {
+		return solve().clone();
+	}
+
+	@Override
+	public int[] getGoldCoinCellIDs() {
+		return collectCellIDs(TypeOfItem.GOLD_COIN);
+	}
+
+	@Override
+	public int[] getThiefCellIDs() {
+		return collectCellIDs(TypeOfItem.THIEF);
+	}
+
+	@Override
+	public int[] getWallEndpointIDs() {
+		int[] endpoints = new int[countRemainedWalls() * 2];
+		int k = 0;
+		for(int i = 0; i < numOfRows; i++) {
+			for(int j = 0; j < numOfCols; j++) {
+				Cell c = grid.get(i).get(j);
+				if (c.hasWall(Direction.NORTH)) {
+					endpoints[k++] = MazeHelper.cornerIdxToID(i, j, numOfCols);
+					endpoints[k++] = MazeHelper.cornerIdxToID(i, j + 1, numOfCols);
+				}
+				if (c.hasWall(Direction.WEST)) {
+					endpoints[k++] = MazeHelper.cornerIdxToID(i, j, numOfCols);
+					endpoints[k++] = MazeHelper.cornerIdxToID(i + 1, j, numOfCols);
+				}
+				if (i == numOfRows - 1 && c.hasWall(Direction.SOUTH)) {
+					endpoints[k++] = MazeHelper.cornerIdxToID(i + 1, j, numOfCols);
+					endpoints[k++] = MazeHelper.cornerIdxToID(i + 1, j + 1, numOfCols);
+				}
+				if (j == numOfCols - 1 && c.hasWall(Direction.EAST)) {
+					endpoints[k++] = MazeHelper.cornerIdxToID(i, j + 1, numOfCols);
+					endpoints[k++] = MazeHelper.cornerIdxToID(i + 1, j + 1, numOfCols);
+				}
+			}
 		}
-		if(seen.contains(l)) {
-			return false;
+		return endpoints;
+	}
+
+	/**
+	 * Solve the maze by an iterative DFS from the starting point. The recursion is replaced by an explicit stack, so
+	 * large mazes do not overflow the call stack, and the visited cells are kept in a boolean array indexed by cell ID.
+	 * The search stops at the first path found.
+	 * @return the IDs of the cells of the path, from the goal back to the starting point.
+	 */
+	private int[] solveByDfs() {
+		MazeEvents.Solve event = new MazeEvents.Solve();
+		event.begin();
+		long start = MazeMetrics.start();
+		long nodesExpanded = 1;
+		int startID = MazeHelper.LocationToID(startLocation, numOfCols);
+		int goalID = MazeHelper.LocationToID(goalLocation, numOfCols);
+		boolean[] seen = new boolean[numOfCells];
+		int[] stack = new int[numOfCells]; // the cells of the current path, from start.
+		byte[] nextDirection = new byte[numOfCells]; // the next Direction to try for each cell on the stack.
+		int top = 0;
+		stack[0] = startID;
+		seen[startID] = true;
+		while (top >= 0 && stack[top] != goalID) {
+			int ID = stack[top];
+			if (nextDirection[top] == DIRECTIONS.length) {
+				top--; // Every direction of this cell has been tried, backtrack.
+				continue;
+			}
+			Direction d = DIRECTIONS[nextDirection[top]++];
+			if (cellAt(ID).hasWall(d)) {
+				continue;
+			}
+			int nextID = nextCellID(ID, d);
+			if (!seen[nextID]) {
+				seen[nextID] = true;
+				stack[++top] = nextID;
+				nodesExpanded++;
+				nextDirection[top] = 0;
+			}
+		}
+
+		// When the goal is not reachable the stack is empty, and so is the path.
+		int[] pathFromGoalToStart = new int[top + 1];
+		for (int k = 0; k <= top; k++) {
+			pathFromGoalToStart[k] = stack[top - k];
 		}
-		seen.add(l);
-		boolean flag = false;
-		List<Direction> validDirection = grid.get(i).get(j).findNoWallDirection();
 
-		for(Direction d: validDirection) {
-			int nextI = moveInSolveMaze(i, j, d)[0];
-			int nextJ = moveInSolveMaze(i, j, d)[1];
-			boolean innerFlag = dfs(nextI, nextJ, seen, path);
-			flag = flag || innerFlag;
-			if (innerFlag) {
-				path.add(l);
+		MazeMetrics.SOLVE.stop(start);
+		MazeMetrics.SOLVE_NODES_EXPANDED.add(nodesExpanded);
+		event.end();
+		if (event.shouldCommit()) {
+			event.solver = "dfs";
+			event.nodesExpanded = nodesExpanded;
+			event.pathLength = pathFromGoalToStart.length;
+			event.commit();
+		}
+		return pathFromGoalToStart;
+	}
+
+	/**
+	 * Solve the maze by walking down the goal distances from the starting point. Each step moves to an adjacent cell
+	 * one step closer to the goal, so the path is a shortest one.
+	 * @return the IDs of the cells of the path, from the goal back to the starting point.
+	 */
+	private int[] solveByGoalDistance() {
+		int ID = MazeHelper.LocationToID(startLocation, numOfCols);
+		int[] distance = goalDistance;
+		int[] pathFromGoalToStart = new int[distance[ID] + 1]; // a cell at distance k is stored at index k.
+		pathFromGoalToStart[distance[ID]] = ID;
+		while (distance[ID] > 0) {
+			for (Direction d : DIRECTIONS) {
+				if (!cellAt(ID).hasWall(d) && distance[nextCellID(ID, d)] == distance[ID] - 1) {
+					ID = nextCellID(ID, d);
+					break;
+				}
 			}
+			pathFromGoalToStart[distance[ID]] = ID;
 		}
+		return pathFromGoalToStart;
+	}
 
-		return flag;
+	/**
+	 * Get the distances to the goal, computing them by BFS from the goal on first use.
+	 * @return an array indexed by cell ID. Cells which cannot reach the goal are set to {@code UNREACHABLE}.
+	 */
+	private int[] goalDistance() {
+		if (goalDistance == null) {
+			int[] distance = new int[numOfCells];
+			Arrays.fill(distance, UNREACHABLE);
+			int[] queue = new int[numOfCells];
+			int head = 0;
+			int tail = 0;
+			int goalID = MazeHelper.LocationToID(goalLocation, numOfCols);
+			distance[goalID] = 0;
+			queue[tail++] = goalID;
+			while (head < tail) {
+				int ID = queue[head++];
+				for (Direction d : DIRECTIONS) {
+					if (cellAt(ID).hasWall(d)) {
+						continue;
+					}
+					int nextID = nextCellID(ID, d);
+					if (distance[nextID] == UNREACHABLE) {
+						distance[nextID] = distance[ID] + 1;
+						queue[tail++] = nextID;
+					}
+				}
+			}
+			this.searchMark = new int[numOfCells];
+			this.searchQueue = queue;
+			this.otherSearchQueue = new int[numOfCells];
+			this.goalDistance = distance;
+		}
+		return goalDistance;
 	}
 
-	protected int[] moveInSolveMaze(int i, int j, Direction d) {
-		return moveToNextCell(i, j, d);
+	/**
+	 * Repair the goal distances after the wall between two adjacent cells is torn down. Only the cells which get
+	 * closer to the goal through the new opening are visited.
+	 * @param distance the goal distances before the change, repaired in place.
+	 * @param ID the ID of one cell of the torn down wall.
+	 * @param nextID the ID of the other cell.
+	 */
+	private void repairDistancesAfterRemoval(int[] distance, int ID, int nextID) {
+		int nearID = distance[ID] <= distance[nextID] ? ID : nextID;
+		int farID = nearID == ID ? nextID : ID;
+		if (distance[nearID] == UNREACHABLE || distance[farID] <= distance[nearID] + 1) {
+			return;
+		}
+		int[] queue = searchQueue;
+		int head = 0;
+		int tail = 0;
+		distance[farID] = distance[nearID] + 1;
+		queue[tail++] = farID;
+		while (head < tail) {
+			int cellID = queue[head++];
+			for (Direction d : DIRECTIONS) {
+				if (cellAt(cellID).hasWall(d)) {
+					continue;
+				}
+				int adjacentID = nextCellID(cellID, d);
+				if (distance[adjacentID] > distance[cellID] + 1) {
+					distance[adjacentID] = distance[cellID] + 1;
+					queue[tail++] = adjacentID;
+				}
+			}
+		}
 	}
 
-	protected int[] moveToNextCell(int i, int j, Direction d){
-		int[] res = {i, j};
-		switch (d) {
-			case NORTH -> res[0] -= 1;
-			case SOUTH -> res[0] += 1;
-			case EAST -> res[1] += 1;
-			case WEST -> res[1] -= 1;
+	/**
+	 * Repair the goal distances after a wall is built between two adjacent cells. First the affected cells are
+	 * collected: the far cell, if the wall cut its only step towards the goal, and then every cell whose steps towards
+	 * the goal all lead to affected cells. Each affected cell is then seeded from its unaffected neighbours, and the
+	 * seeds are expanded inside the affected region in increasing order of distance.
+	 * @param distance the goal distances before the change, repaired in place.
+	 * @param ID the ID of one cell of the built wall.
+	 * @param nextID the ID of the other cell.
+	 */
+	private void repairDistancesAfterAddition(int[] distance, int ID, int nextID) {
+		int nearID = distance[ID] <= distance[nextID] ? ID : nextID;
+		int farID = nearID == ID ? nextID : ID;
+		if (distance[farID] == UNREACHABLE || distance[farID] == distance[nearID]
+				|| hasStepTowardsGoal(distance, farID, -1)) {
+			return;
+		}
+		int affected = nextSearchStamp();
+		int[] region = searchQueue;
+		int size = 0;
+		searchMark[farID] = affected;
+		region[size++] = farID;
+		for (int k = 0; k < size; k++) {
+			int cellID = region[k];
+			for (Direction d : DIRECTIONS) {
+				if (cellAt(cellID).hasWall(d)) {
+					continue;
+				}
+				int adjacentID = nextCellID(cellID, d);
+				if (distance[adjacentID] == distance[cellID] + 1 && searchMark[adjacentID] != affected
+						&& !hasStepTowardsGoal(distance, adjacentID, affected)) {
+					searchMark[adjacentID] = affected;
+					region[size++] = adjacentID;
+				}
+			}
+		}
+
+		// Seed each affected cell from its unaffected neighbours, and sort the seeds by distance.
+		long[] seeds = new long[size];
+		int numOfSeeds = 0;
+		for (int k = 0; k < size; k++) {
+			int cellID = region[k];
+			int best = UNREACHABLE;
+			for (Direction d : DIRECTIONS) {
+				if (cellAt(cellID).hasWall(d)) {
+					continue;
+				}
+				int adjacentID = nextCellID(cellID, d);
+				if (searchMark[adjacentID] != affected && distance[adjacentID] != UNREACHABLE) {
+					best = Math.min(best, distance[adjacentID] + 1);
+				}
+			}
+			distance[cellID] = best;
+			if (best != UNREACHABLE) {
+				seeds[numOfSeeds++] = (long) best << 32 | cellID;
+			}
+		}
+		Arrays.sort(seeds, 0, numOfSeeds);
+
+		// Expand the seeds in increasing order of distance, merging the sorted seeds with the BFS queue.
+		int[] queue = otherSearchQueue;
+		int head = 0;
+		int tail = 0;
+		int nextSeed = 0;
+		while (nextSeed < numOfSeeds || head < tail) {
+			int cellID;
+			if (head == tail || (nextSeed < numOfSeeds && (int) (seeds[nextSeed] >>> 32) <= distance[queue[head]])) {
+				cellID = (int) seeds[nextSeed];
+				if (distance[cellID] < (int) (seeds[nextSeed++] >>> 32)) {
+					continue; // Already reached by a shorter path.
+				}
+			} else {
+				cellID = queue[head++];
+			}
+			for (Direction d : DIRECTIONS) {
+				if (cellAt(cellID).hasWall(d)) {
+					continue;
+				}
+				int adjacentID = nextCellID(cellID, d);
+				if (searchMark[adjacentID] == affected && distance[adjacentID] > distance[cellID] + 1) {
+					distance[adjacentID] = distance[cellID] + 1;
+					queue[tail++] = adjacentID;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Check whether a cell has an adjacent cell one step closer to the goal, without any wall in between.
+	 * @param distance the goal distances.
+	 * @param ID the ID of a cell.
+	 * @param excludedMark adjacent cells with this search mark are not counted.
+	 * @return true if such an adjacent cell exists, otherwise false.
+	 */
+	private boolean hasStepTowardsGoal(int[] distance, int ID, int excludedMark) {
+		for (Direction d : DIRECTIONS) {
+			if (cellAt(ID).hasWall(d)) {
+				continue;
+			}
+			int adjacentID = nextCellID(ID, d);
+			if (distance[adjacentID] == distance[ID] - 1 && searchMark[adjacentID] != excludedMark) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Check that the starting point can still reach the goal location after a wall is built between two adjacent
+	 * cells. If the far cell keeps another step towards the goal, nothing is cut. Otherwise a BFS is run from each
+	 * cell, one cell at a time in turn. If they meet, the cells are still connected. If one runs out first, it has
+	 * explored a whole cut off part, which is the smaller one; the goal stays reachable if that part contains both or
+	 * neither of the starting point and the goal location.
+	 * @param distance the goal distances before the change.
+	 * @param ID the ID of one cell of the built wall.
+	 * @param nextID the ID of the other cell.
+	 * @return true if the starting point can still reach the goal location, otherwise false.
+	 */
+	private boolean isGoalStillReachable(int[] distance, int ID, int nextID) {
+		int farID = distance[ID] <= distance[nextID] ? nextID : ID;
+		if (distance[farID] == UNREACHABLE || distance[ID] == distance[nextID]
+				|| hasStepTowardsGoal(distance, farID, -1)) {
+			return true;
+		}
+		int startID = MazeHelper.LocationToID(startLocation, numOfCols);
+		int goalID = MazeHelper.LocationToID(goalLocation, numOfCols);
+		int mark = nextSearchStamp();
+		int otherMark = nextSearchStamp();
+		int[] queue = searchQueue;
+		int[] otherQueue = otherSearchQueue;
+		int head = 0;
+		int tail = 0;
+		int otherHead = 0;
+		int otherTail = 0;
+		searchMark[ID] = mark;
+		queue[tail++] = ID;
+		searchMark[nextID] = otherMark;
+		otherQueue[otherTail++] = nextID;
+		while (head < tail && otherHead < otherTail) {
+			for (int side = 0; side < 2; side++) {
+				int[] q = side == 0 ? queue : otherQueue;
+				int own = side == 0 ? mark : otherMark;
+				int cellID = q[side == 0 ? head++ : otherHead++];
+				for (Direction d : DIRECTIONS) {
+					if (cellAt(cellID).hasWall(d)) {
+						continue;
+					}
+					int adjacentID = nextCellID(cellID, d);
+					if (searchMark[adjacentID] == own) {
+						continue;
+					}
+					if (searchMark[adjacentID] == (side == 0 ? otherMark : mark)) {
+						return true; // The two searches met.
+					}
+					searchMark[adjacentID] = own;
+					if (side == 0) {
+						queue[tail++] = adjacentID;
+					} else {
+						otherQueue[otherTail++] = adjacentID;
+					}
+				}
+				if (side == 0 ? head == tail : otherHead == otherTail) {
+					break;
+				}
+			}
+		}
+		int exploredMark = head == tail ? mark : otherMark;
+		return (searchMark[startID] == exploredMark) == (searchMark[goalID] == exploredMark);
+	}
+
+	/**
+	 * Get a new mark for the search scratch space, so the marks of earlier searches need no clearing.
+	 * @return a mark no cell holds yet.
+	 */
+	private int nextSearchStamp() {
+		if (searchStamp == Integer.MAX_VALUE) {
+			Arrays.fill(searchMark, 0);
+			searchStamp = 0;
+		}
+		return ++searchStamp;
+	}
+
+	/**
+	 * Drop the memoized walls and solved path, so they are rebuilt from the changed walls on next access.
+	 */
+	private void invalidateDerivedState() {
+		synchronized (derivedStateLock) {
+			this.wallsLocation = null;
+			this.solveLocation = null;
+			this.solveCellIDs = null;
+		}
+	}
+
+	/**
+	 * Check that a wall can change during the game. The border walls of a non-wrap maze never change.
+	 * @param ID the ID of a cell.
+	 * @param d the {@code Direction} of the wall in this cell.
+	 * @throws IllegalArgumentException if the wall is on the border of a non-wrap maze, or the cell is not in the maze.
+	 */
+	private void checkChangeableWall(int ID, Direction d) {
+		if (ID < 0 || ID >= numOfCells) {
+			throw new IllegalArgumentException("Cell " + ID + " is not inside the maze grid.\n");
 		}
-		return res;
+		if (isBorderWall(ID, d) && !isWrap()) {
+			throw new IllegalArgumentException("The border wall at " + d + " of cell " + ID + " cannot be changed.\n");
+		}
+	}
+
+	/**
+	 * Check whether the wall at direction d of a cell is on the border of the maze.
+	 * @param ID the ID of a cell.
+	 * @param d the {@code Direction} of the wall in this cell.
+	 * @return true if the wall is on the border, otherwise false.
+	 */
+	private boolean isBorderWall(int ID, Direction d) {
+		int i = MazeHelper.IDToI(ID, numOfCols);
+		int j = MazeHelper.IDToJ(ID, numOfCols);
+		return switch (d) {
+			case NORTH -> i == 0;
+			case SOUTH -> i == numOfRows - 1;
+			case EAST -> j == numOfCols - 1;
+			case WEST -> j == 0;
+		};
+	}
+
+	/**
+	 * Check whether the border walls of this maze can be torn down, joining the opposite sides.
+	 * @return true for Wrap-Maze, otherwise false.
+	 */
+	protected boolean isWrap() {
+		return false;
+	}
+
+	/**
+	 * Find the opposite {@code Direction}.
+	 * @param d a {@code Direction}.
+	 * @return the opposite {@code Direction} of d.
+	 */
+	private static Direction opposite(Direction d) {
+		return switch (d) {
+			case NORTH -> Direction.SOUTH;
+			case SOUTH -> Direction.NORTH;
+			case EAST -> Direction.WEST;
+			case WEST -> Direction.EAST;
+		};
+	}
+
+	/**
+	 * Find the ID of the adjacent cell at direction d. For Wrap-Maze, the adjacent cell of a border cell can be on the
+	 * `wrap` side.
+	 * @param ID the ID of a cell.
+	 * @param d the {@code Direction} to move to.
+	 * @return the ID of the adjacent cell.
+	 */
+	protected int nextCellID(int ID, Direction d) {
+		return switch (d) {
+			case NORTH -> ID - numOfCols;
+			case SOUTH -> ID + numOfCols;
+			case EAST -> ID + 1;
+			case WEST -> ID - 1;
+		};
+	}
+
+	/**
+	 * Collect the IDs of the cells which contain the given item.
+	 * @param type the type of item. See details in {@code TypeOfItem}.
+	 * @return the IDs of the cells, in increasing order.
+	 */
+	private int[] collectCellIDs(TypeOfItem type) {
+		int[] IDs = new int[16];
+		int count = 0;
+		for (int i = 0; i < numOfRows; i++) {
+			List<Cell> cells = grid.get(i);
+			for (int j = 0; j < numOfCols; j++) {
+				Cell c = cells.get(j);
+				if (type == TypeOfItem.GOLD_COIN ? c.getHasGoldCoin() : c.getHasThief()) {
+					if (count == IDs.length) {
+						IDs = Arrays.copyOf(IDs, count * 2);
+					}
+					IDs[count++] = MazeHelper.idxToID(i, j, numOfCols);
+				}
+			}
+		}
+		return Arrays.copyOf(IDs, count);
+	}
+
+	/**
+	 * Find the {@code Cell} of the given ID.
+	 * @param ID the ID of a cell.
+	 * @return the {@code Cell} in the grid.
+	 */
+	private Cell cellAt(int ID) {
+		return grid.get(MazeHelper.IDToI(ID, numOfCols)).get(MazeHelper.IDToJ(ID, numOfCols));
+	}
+
+	/**
+	 * Convert cell IDs to {@code Location}. Used at the edge of the {@code Location} based API only.
+	 * @param IDs the IDs of cells.
+	 * @return a list of {@code Location} in the same order.
+	 */
+	private List<Location> cellIDsToLocations(int[] IDs) {
+		List<Location> locations = new ArrayList<>(IDs.length);
+		for (int ID : IDs) {
+			locations.add(cellAt(ID).getLocation());
+		}
+		return locations;
 	}
 
 	/**
@@ -238,7 +1095,12 @@ abstract class GeneralMaze implements Maze {
 	 */
 	@Override
 	public String toString() {
-		return printMaze();
+		return MazePrinter.printMaze(this);
+	}
+
+	@Override
+	public String printRegion(int fromI, int fromJ, int toI, int toJ) {
+		return MazePrinter.printRegion(this, fromI, fromJ, toI, toJ);
 	}
 
 	/**
@@ -261,9 +1123,8 @@ abstract class GeneralMaze implements Maze {
 	 * @return a 2-elements array, index 0 refers to the sourceID, index 1 refers to the destID.
 	 */
 	protected int[] randomSelectAndRemoveEdges(List<Edge> edgeList) {
-		Random randNum = new Random();
 		int[] IDList = new int[2];
-		int randEdgeIdx = randNum.nextInt(edgeList.size());
+		int randEdgeIdx = random.nextInt(edgeList.size());
 		IDList[0] = edgeList.get(randEdgeIdx).getSource();
 		IDList[1] = edgeList.get(randEdgeIdx).getDest();
 		edgeList.remove(randEdgeIdx);
@@ -292,15 +1153,49 @@ abstract class GeneralMaze implements Maze {
 	 * @return a well-generated 2D-Array maze grid.
 	 */
 	private List<List<Cell>> generateGrid() {
+		MazeEvents.GenerationPhase event = startPhase();
+		long start = MazeMetrics.start();
 		List<List<Cell>> grid = initializeGrid();
+		endPhase(event, "gridInit", MazeMetrics.GRID_INIT, start);
 		// Using `Kruskal Algorithm` to generate connected maze grid.
 		makeGridConnectedUsingKruskalAlgorithm(grid);
 		// Randomly select `Cell` to place gold coins and thieves.
+		event = startPhase();
+		start = MazeMetrics.start();
 		decorateMazeGridWithItems(grid);
+		endPhase(event, "itemDecoration", MazeMetrics.ITEM_DECORATION, start);
 
 		return grid;
 	}
 
+	/**
+	 * Start the JFR event of one construction phase.
+	 * @return the started event.
+	 */
+	private MazeEvents.GenerationPhase startPhase() {
+		MazeEvents.GenerationPhase event = new MazeEvents.GenerationPhase();
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * End one construction phase: record its time in {@code MazeMetrics} and commit its JFR event.
+	 * @param event the event returned by {@code startPhase}.
+	 * @param phase the name of the phase.
+	 * @param timer the metric of the phase.
+	 * @param start the value returned by {@code MazeMetrics.start} when the phase started.
+	 */
+	private void endPhase(MazeEvents.GenerationPhase event, String phase, MazeMetrics.Timer timer, long start) {
+		timer.stop(start);
+		event.end();
+		if (event.shouldCommit()) {
+			event.phase = phase;
+			event.numOfRows = numOfRows;
+			event.numOfCols = numOfCols;
+			event.commit();
+		}
+	}
+
 	/**
 	 * Initialize the grid. Each cell is isolated by 4 surrounded walls.
 	 * @return a 2D-Array grid, maze grid generated in progress.
@@ -326,11 +1221,22 @@ abstract class GeneralMaze implements Maze {
 	 * @param grid a 2D-Array, maze grid generated in progress.
 	 */
 	private void makeGridConnectedUsingKruskalAlgorithm(List<List<Cell>> grid) {
+		MazeEvents.GenerationPhase event = startPhase();
+		long start = MazeMetrics.start();
 		List<Edge> innerEdgeList = generateInnerEdgeList();
-		int[] parent = makeSet();
-		int remainedWalls = createPerfectMazeGrid(calculateTotalWalls(), innerEdgeList, grid, parent);
+		int remainedWalls;
+		if (GENERATION_STRATEGY == GenerationStrategy.CONCURRENT_KRUSKAL) {
+			remainedWalls = createPerfectMazeGridConcurrently(calculateTotalWalls(), innerEdgeList, grid);
+		} else {
+			int[] parent = makeSet();
+			remainedWalls = createPerfectMazeGrid(calculateTotalWalls(), innerEdgeList, grid, parent);
+		}
+		endPhase(event, "kruskal", MazeMetrics.KRUSKAL, start);
 		// For Room Maze, need to remove more walls.
+		event = startPhase();
+		start = MazeMetrics.start();
 		continueRemoveWalls(remainedWalls, innerEdgeList, grid);
+		endPhase(event, "extraWallRemoval", MazeMetrics.EXTRA_WALL_REMOVAL, start);
 	}
 
 	/**
@@ -351,11 +1257,10 @@ abstract class GeneralMaze implements Maze {
 	 * @return the current remained walls in the maze.
 	 */
 	private int createPerfectMazeGrid(int remainedWalls, List<Edge> innerEdgeList, List<List<Cell>> grid, int[] parent) {
-		Random randNum = new Random();
 		int maxRemainingWalls = MazeHelper.calculateMaxRemainingWalls(numOfRows, numOfCols);
 		List<Edge> edgeList = new ArrayList<>(innerEdgeList); // copy the innerEdgeList's element.
 		while (remainedWalls > maxRemainingWalls) {
-			int randEdgeIdx = randNum.nextInt(edgeList.size());
+			int randEdgeIdx = random.nextInt(edgeList.size());
 			int sourceID = edgeList.get(randEdgeIdx).getSource();
 			int destID = edgeList.get(randEdgeIdx).getDest();
 			// If the `sourceID` cell and `destID` cell can be joint, tear down the wall between these two cells and
@@ -373,6 +1278,42 @@ abstract class GeneralMaze implements Maze {
 		return remainedWalls;
 	}
 
+	/**
+	 * Create a Perfect Maze grid with {@code ConcurrentKruskal}. The tree edges are chosen on all cores, then their
+	 * walls are torn down here, on this thread, and the other edges are kept in the inner edge list in their order.
+	 * @param remainedWalls the current remained walls in the maze, including the inner walls and border walls.
+	 * @param innerEdgeList a list of inner {@code Edge} in the maze.
+	 * @param grid a 2D-Array, maze grid generated in progress.
+	 * @return the current remained walls in the maze.
+	 * @throws IllegalStateException if the chosen edges do not leave {@code calculateMaxRemainingWalls} walls.
+	 */
+	private int createPerfectMazeGridConcurrently(int remainedWalls, List<Edge> innerEdgeList, List<List<Cell>> grid) {
+		int[] sources = new int[innerEdgeList.size()];
+		int[] dests = new int[innerEdgeList.size()];
+		for (int k = 0; k < sources.length; k++) {
+			sources[k] = innerEdgeList.get(k).getSource();
+			dests[k] = innerEdgeList.get(k).getDest();
+		}
+		boolean[] isTreeEdge = ConcurrentKruskal.spanningTree(numOfCells, sources, dests, random.nextLong());
+		List<Edge> remainingEdges = new ArrayList<>(innerEdgeList.size());
+		for (int k = 0; k < sources.length; k++) {
+			if (isTreeEdge[k]) {
+				tearDownInnerWall(sources[k], dests[k], grid);
+				remainedWalls--;
+			} else {
+				remainingEdges.add(innerEdgeList.get(k));
+			}
+		}
+		innerEdgeList.clear();
+		innerEdgeList.addAll(remainingEdges);
+		int maxRemainingWalls = MazeHelper.calculateMaxRemainingWalls(numOfRows, numOfCols);
+		if (remainedWalls != maxRemainingWalls) {
+			throw new IllegalStateException("The spanning tree left " + remainedWalls + " walls instead of " +
+					maxRemainingWalls + ".");
+		}
+		return remainedWalls;
+	}
+
 	/**
 	 * Tear down the wall inside the maze which is between `source` ID cell and `dest` ID cell.
 	 * @param sourceID the source ID of an edge.
@@ -380,10 +1321,10 @@ abstract class GeneralMaze implements Maze {
 	 * @param grid a 2D-Array, maze grid generated in progress.
 	 */
 	protected void tearDownInnerWall(int sourceID, int destID, List<List<Cell>> grid) {
-		int sourceI = MazeHelper.IDToLocation(sourceID, numOfCols).getI();
-		int sourceJ = MazeHelper.IDToLocation(sourceID, numOfCols).getJ();
-		int destI = MazeHelper.IDToLocation(destID, numOfCols).getI();
-		int destJ = MazeHelper.IDToLocation(destID, numOfCols).getJ();
+		int sourceI = MazeHelper.IDToI(sourceID, numOfCols);
+		int sourceJ = MazeHelper.IDToJ(sourceID, numOfCols);
+		int destI = MazeHelper.IDToI(destID, numOfCols);
+		int destJ = MazeHelper.IDToJ(destID, numOfCols);
 		if (Math.abs(sourceJ - destJ) == 1) {
 			grid.get(sourceI).get(sourceJ).tearDownWall(Direction.EAST);
 			grid.get(destI).get(destJ).tearDownWall(Direction.WEST);
@@ -391,6 +1332,15 @@ abstract class GeneralMaze implements Maze {
 			grid.get(sourceI).get(sourceJ).tearDownWall(Direction.SOUTH);
 			grid.get(destI).get(destJ).tearDownWall(Direction.NORTH);
 		}
+		decreaseWallCount(1);
+	}
+
+	/**
+	 * Update the live wall counter after walls are torn down.
+	 * @param count the number of torn down walls. Negative when walls are built.
+	 */
+	protected void decreaseWallCount(int count) {
+		this.numOfWalls -= count;
 	}
 
 	/**
@@ -504,41 +1454,47 @@ abstract class GeneralMaze implements Maze {
 	 * @param grid a 2D-Array grid, maze grid ready to place items.
 	 */
 	private void decorateMazeGridWithItems(List<List<Cell>> grid) {
-		Set<Integer> itemsIDSet = new HashSet<>();
 		// Make sure gold coin and thief do not stand on the start location or goal location.
-		itemsIDSet.add(MazeHelper.LocationToID(startLocation, numOfCols));
-		itemsIDSet.add(MazeHelper.LocationToID(goalLocation, numOfCols));
-		// Randomly select Cell to place gold coin
-		int numOfGoldCoin = MazeHelper.getXPercentageInInt(numOfCells, Parameters.GOLD_COIN_PERCENT);
-		placeItems(TypeOfItem.GOLD_COIN, numOfGoldCoin, itemsIDSet, grid);
-
-		// Randomly select Cell to place thief
-		int numOfThief = MazeHelper.getXPercentageInInt(numOfCells, Parameters.THIEF_PERCENT);
-		placeItems(TypeOfItem.THIEF, numOfThief, itemsIDSet, grid);
+		int startID = MazeHelper.LocationToID(startLocation, numOfCols);
+		int goalID = MazeHelper.LocationToID(goalLocation, numOfCols);
+		int[] reservedIDs = startID == goalID ? new int[] {startID}
+				: new int[] {Math.min(startID, goalID), Math.max(startID, goalID)};
+		int numOfFreeCells = numOfCells - reservedIDs.length;
+		// Both items are drawn from one shuffle of the free cells, so no cell gets two items.
+		PartialShuffle freeCells = new PartialShuffle(numOfFreeCells, random);
+		int numOfGoldCoin = Math.min(MazeHelper.getXPercentageInInt(numOfCells, goldCoinDensity), numOfFreeCells);
+		placeItems(TypeOfItem.GOLD_COIN, numOfGoldCoin, freeCells, reservedIDs, grid);
+
+		int numOfThief = Math.min(MazeHelper.getXPercentageInInt(numOfCells, thiefDensity),
+				numOfFreeCells - numOfGoldCoin);
+		placeItems(TypeOfItem.THIEF, numOfThief, freeCells, reservedIDs, grid);
 	}
 
 	/**
-	 * Place gold coin or thief on the randomly selected Cell. Each cell can place only one item.
+	 * Place gold coin or thief on randomly selected cells, in O(numOfItems) whatever the density.
 	 * @param type the type of item. See details in {@code TypeOfItem}.
 	 * @param numOfItems number of the items.
-	 * @param itemsIDSet a set of items' ID.
+	 * @param freeCells the shuffle of the free cells, indexed by their rank among the cells which are not reserved.
+	 * @param reservedIDs the IDs of the cells which never hold an item, in increasing order.
 	 * @param grid a 2D-Array grid, maze grid ready to place items.
 	 */
-	private void placeItems(TypeOfItem type, int numOfItems, Set<Integer> itemsIDSet, List<List<Cell>> grid) {
-		Random randNum = new Random();
-		int count = 0;
-		while(count != numOfItems) {
-			int ID = randNum.nextInt(numOfCells);
-			if (!itemsIDSet.contains(ID)) {
-				int i = MazeHelper.IDToLocation(ID, numOfCols).getI();
-				int j = MazeHelper.IDToLocation(ID, numOfCols).getJ();
-				if (type == TypeOfItem.GOLD_COIN) {
-					grid.get(i).get(j).setHasGoldCoin(true);
-				} else if (type == TypeOfItem.THIEF) {
-					grid.get(i).get(j).setHasThiefTrue();
+	private void placeItems(TypeOfItem type, int numOfItems, PartialShuffle freeCells, int[] reservedIDs,
+	                        List<List<Cell>> grid) {
+		for (int count = 0; count < numOfItems; count++) {
+			int ID = freeCells.next();
+			for (int reservedID : reservedIDs) {
+				if (ID >= reservedID) {
+					ID++; // skip over the reserved cell.
 				}
-				itemsIDSet.add(ID);
-				count++;
+			}
+			int i = MazeHelper.IDToI(ID, numOfCols);
+			int j = MazeHelper.IDToJ(ID, numOfCols);
+			if (type == TypeOfItem.GOLD_COIN) {
+				grid.get(i).get(j).setHasGoldCoin(true);
+				numOfGoldCoins++;
+			} else if (type == TypeOfItem.THIEF) {
+				grid.get(i).get(j).setHasThiefTrue();
+				numOfThieves++;
 			}
 		}
 	}
@@ -568,16 +1524,16 @@ abstract class GeneralMaze implements Maze {
 		for(int i = 0; i < numOfRows; i++) {
 			for(int j = 0; j < numOfCols; j++) {
 				Cell c = grid.get(i).get(j);
-				if (c.getWalls().get(Direction.NORTH)) {
+				if (c.hasWall(Direction.NORTH)) {
 					walls.add(findWallStartAndEndPoint(Direction.NORTH, c));
 				}
-				if (c.getWalls().get(Direction.WEST)) {
+				if (c.hasWall(Direction.WEST)) {
 					walls.add(findWallStartAndEndPoint(Direction.WEST, c));
 				}
-				if (i == numOfRows - 1 && c.getWalls().get(Direction.SOUTH)) {
+				if (i == numOfRows - 1 && c.hasWall(Direction.SOUTH)) {
 					walls.add(findWallStartAndEndPoint(Direction.SOUTH, c));
 				}
-				if (j == numOfCols - 1 && c.getWalls().get(Direction.EAST)) {
+				if (j == numOfCols - 1 && c.hasWall(Direction.EAST)) {
 					walls.add(findWallStartAndEndPoint(Direction.EAST, c));
 				}
 			}
@@ -641,77 +1597,9 @@ abstract class GeneralMaze implements Maze {
 		if (grid.get(i).get(j).getHasGoldCoin()){
 			player.collectGold();
 			grid.get(i).get(j).setHasGoldCoin(false); // Remove the gold coin from this grid.
+			numOfGoldCoins--;
 		} else if (grid.get(i).get(j).getHasThief()) {
 			player.loseGold();
 		}
 	}
-
-	/**
-	 * Print this maze in string type.
-	 * @return a string including the basic information of the maze. The location of walls/start/goal/goldCoin/thief/
-	 * player.
-	 */
-	private String printMaze() {
-		StringBuilder message = new StringBuilder();
-
-		String startLogo = "start";
-		String goalLogo = " end ";
-		String playerLogo = "  p  ";
-		String goldLogo = "  $  ";
-		String thiefLogo = "  &  ";
-		message.append(startLogo).append(" means the start location.\n");
-		message.append(goalLogo).append(" means the goal location.\n");
-		message.append(playerLogo).append(" means the location of player.\n");
-		message.append(goldLogo).append(" means the location of gold coin.\n");
-		message.append(thiefLogo).append(" means the location of thief.\n");
-
-		String[][] mazeInfo = new String[numOfRows * 2 + 1][numOfCols * 2 + 1];
-		String horizonLine = "-----";
-		String verticalLine = "|";
-		String horizonNoLine = "     ";
-		String verticalNoLine = " ";
-		String noItem = "     ";
-		String corner = "+";
-
-		for(int i = 0; i < numOfRows; i++) {
-			for(int j = 0; j < numOfCols; j++) {
-				Cell c = grid.get(i).get(j);
-				mazeInfo[i * 2][j * 2] = corner;
-				mazeInfo[i * 2][j * 2 + 1] = c.getWalls().get(Direction.NORTH) ? horizonLine : horizonNoLine;
-				mazeInfo[i * 2 + 1][j * 2] = c.getWalls().get(Direction.WEST) ? verticalLine : verticalNoLine;
-				if (i == numOfRows - 1) {
-					mazeInfo[i * 2 + 2][j * 2] = corner;
-					mazeInfo[i * 2 + 2][j * 2 + 1] = c.getWalls().get(Direction.SOUTH) ? horizonLine : horizonNoLine;
-				}
-				if (j == numOfCols - 1) {
-					mazeInfo[i * 2][j * 2 + 2] = corner;
-					mazeInfo[i * 2 + 1][j * 2 + 2] = c.getWalls().get(Direction.EAST) ? verticalLine : verticalNoLine;
-				}
-				if (c.getLocation().equals(getPlayerLocation())) {
-					mazeInfo[i * 2 + 1][j * 2 + 1] = playerLogo;
-				} else if (c.getLocation().equals(goalLocation)) {
-					mazeInfo[i * 2+ 1][j * 2 + 1] = goalLogo;
-				} else if (c.getLocation().equals(startLocation)) {
-					mazeInfo[i * 2 + 1][j * 2+ 1] = startLogo;
-				} else if (c.getHasGoldCoin()) {
-					mazeInfo[i * 2 + 1][j * 2 + 1] = goldLogo;
-				} else if (c.getHasThief()) {
-					mazeInfo[i * 2 + 1][j * 2+ 1] = thiefLogo;
-				} else {
-					mazeInfo[i * 2 + 1][j * 2 + 1] = noItem;
-				}
-			}
-		}
-		mazeInfo[numOfRows * 2][numOfCols * 2] = corner;
-
-		for (String[] strings : mazeInfo) {
-			StringBuilder line = new StringBuilder();
-			for(String s: strings) {
-				line.append(s);
-			}
-			message.append(line).append("\n");
-		}
-
-		return String.valueOf(message);
-	}
 }
@@ -0,0 +1,33 @@
+/**
+ * The {@code GenerationStrategy} represents how a {@code GeneralMaze} connects its grid into a perfect maze before the
+ * room mazes tear down their extra walls. The strategy is chosen for the whole program by the system property
+ * {@code maze.generator}, for example {@code -Dmaze.generator=concurrent_kruskal}.
+ */
+public enum GenerationStrategy {
+	/**
+	 * Kruskal on one thread, drawing each edge at random from the seed. The default, and the only strategy which
+	 * rebuilds the same maze from the same seed, as replaying a {@code GameRecord} needs.
+	 */
+	KRUSKAL,
+	/**
+	 * Kruskal over slices of a shuffled edge list on all cores at once, see {@code ConcurrentKruskal}. The edge order
+	 * comes from the seed, but which edge closes a cycle depends on the timing of the threads, so the same seed may
+	 * build a different maze.
+	 */
+	CONCURRENT_KRUSKAL;
+
+	/**
+	 * Find the strategy from the system property {@code maze.generator}.
+	 * @return the matched {@code GenerationStrategy}, or {@code KRUSKAL} if the property is not set.
+	 * @throws IllegalArgumentException if the property names no strategy.
+	 */
+	public static GenerationStrategy fromProperty() {
+		String name = System.getProperty("maze.generator", KRUSKAL.name());
+		for (GenerationStrategy strategy : values()) {
+			if (strategy.name().equalsIgnoreCase(name)) {
+				return strategy;
+			}
+		}
+		throw new IllegalArgumentException("Unsupported generator " + name + ".\n");
+	}
+}
@@ -0,0 +1,565 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The {@code HierarchicalPathfinder} class answers many path queries on one large maze layout by hierarchical
+ * pathfinding (HPA*). The grid is split into square clusters. Each run of openings across the border of two clusters
+ * becomes one transition, a pair of entrance cells, and the distances between the entrances of each cluster are
+ * computed once by BFS inside the cluster. A query searches the small graph of entrances by A*, then refines only the
+ * clusters along the abstract path into cells. The index is immutable and can be shared by any number of threads;
+ * {@code MazeLayout.getHierarchicalPathfinder} builds it once per layout.
+ *
+ * When the start and the goal are in the same or in adjacent clusters, a BFS bounded to those two clusters also offers
+ * a direct path, so nearby cells get a path that is shortest unless it must leave both clusters. Otherwise a path is
+ * only shortest through the chosen entrances: each border is crossed at the middle of its run of openings, and the
+ * detours to those entrances can make the path several steps longer than a shortest path in the grid.
+ */
+public final class HierarchicalPathfinder {
+	private static final Direction[] DIRECTIONS = Direction.values();
+	public static final int DEFAULT_CLUSTER_SIZE = 16;
+
+	private final MazeLayout layout;
+	private final int clusterSize;
+	private final int numOfClusterRows;
+	private final int numOfClusterCols;
+	private final int[] nodeCell;          // the cell of each entrance node.
+	private final int[] nodeOfCell;        // the entrance node of each cell, or -1.
+	private final int[] clusterNodeStart;  // the entrance nodes of cluster c are clusterNodes[clusterNodeStart[c]..]
+	private final int[] clusterNodes;
+	private final int[] edgeStart;         // the edges of node u are edgeTarget/edgeCost[edgeStart[u]..edgeStart[u+1]]
+	private final int[] edgeTarget;
+	private final int[] edgeCost;
+	private final ThreadLocal<Scratch> scratch;
+
+	/**
+	 * Constructs a {@code HierarchicalPathfinder} object. The clusters are indexed in parallel.
+	 *
+	 * @param layout the layout to index.
+	 * @param clusterSize the number of rows and columns of a cluster. Must be positive.
+	 * @throws IllegalArgumentException if {@code clusterSize} is not positive.
+	 */
+	public HierarchicalPathfinder(MazeLayout layout, int clusterSize) {
+		if (clusterSize <= 0) {
+			throw new IllegalArgumentException("ClusterSize " + clusterSize + " must be positive!\n");
+		}
+		this.layout = layout;
+		this.clusterSize = clusterSize;
+		this.numOfClusterRows = (layout.getNumOfRows() + clusterSize - 1) / clusterSize;
+		this.numOfClusterCols = (layout.getNumOfCols() + clusterSize - 1) / clusterSize;
+		int numOfClusters = numOfClusterRows * numOfClusterCols;
+
+		// Find the transitions. A pair of entrance cells is kept for each run of openings across a cluster border.
+		IntList transitions = new IntList();
+		findTransitions(Direction.EAST, transitions);
+		findTransitions(Direction.SOUTH, transitions);
+		this.nodeOfCell = new int[layout.getNumOfCells()];
+		Arrays.fill(nodeOfCell, -1);
+		IntList cells = new IntList();
+		for (int k = 0; k < transitions.size; k++) {
+			int ID = transitions.values[k];
+			if (nodeOfCell[ID] < 0) {
+				nodeOfCell[ID] = cells.size;
+				cells.add(ID);
+			}
+		}
+		this.nodeCell = cells.toArray();
+		int numOfNodes = nodeCell.length;
+
+		// Group the entrance nodes by cluster.
+		this.clusterNodeStart = new int[numOfClusters + 1];
+		for (int ID : nodeCell) {
+			clusterNodeStart[clusterOf(ID) + 1]++;
+		}
+		for (int c = 0; c < numOfClusters; c++) {
+			clusterNodeStart[c + 1] += clusterNodeStart[c];
+		}
+		this.clusterNodes = new int[numOfNodes];
+		int[] fill = Arrays.copyOf(clusterNodeStart, numOfClusters);
+		for (int u = 0; u < numOfNodes; u++) {
+			clusterNodes[fill[clusterOf(nodeCell[u])]++] = u;
+		}
+
+		// Edges: the transitions cost 1, the distances inside each cluster are found by BFS, cluster by cluster.
+		this.scratch = ThreadLocal.withInitial(() -> new Scratch(clusterSize, numOfNodes));
+		int[][] intraEdges = IntStream.range(0, numOfClusters).parallel()
+				.mapToObj(this::findIntraClusterEdges).toArray(int[][]::new);
+		int[] degree = new int[numOfNodes + 1];
+		for (int k = 0; k < transitions.size; k += 2) {
+			degree[nodeOfCell[transitions.values[k]] + 1]++;
+			degree[nodeOfCell[transitions.values[k + 1]] + 1]++;
+		}
+		for (int[] edges : intraEdges) {
+			for (int k = 0; k < edges.length; k += 3) {
+				degree[edges[k] + 1]++;
+			}
+		}
+		for (int u = 0; u < numOfNodes; u++) {
+			degree[u + 1] += degree[u];
+		}
+		this.edgeStart = degree;
+		this.edgeTarget = new int[edgeStart[numOfNodes]];
+		this.edgeCost = new int[edgeStart[numOfNodes]];
+		fill = Arrays.copyOf(edgeStart, numOfNodes);
+		for (int k = 0; k < transitions.size; k += 2) {
+			int u = nodeOfCell[transitions.values[k]];
+			int v = nodeOfCell[transitions.values[k + 1]];
+			addEdge(fill, u, v, 1);
+			addEdge(fill, v, u, 1);
+		}
+		for (int[] edges : intraEdges) {
+			for (int k = 0; k < edges.length; k += 3) {
+				addEdge(fill, edges[k], edges[k + 1], edges[k + 2]);
+			}
+		}
+	}
+
+	/**
+	 * Find a path between two cells. Only the clusters of the two cells and of the abstract path are searched cell by
+	 * cell, so the time grows with the length of the path rather than with the size of the maze.
+	 * @param startID the ID of the starting cell.
+	 * @param goalID the ID of the goal cell.
+	 * @return the IDs of the cells of the path, from the goal back to the start like {@code getSolveCellIDs}, or an
+	 * empty array if the goal cannot be reached.
+	 */
+	public int[] findPath(int startID, int goalID) {
+		Scratch s = scratch.get();
+		int numOfNodes = nodeCell.length;
+		int startNode = numOfNodes;
+		int goalNode = numOfNodes + 1;
+		int startCluster = clusterOf(startID);
+		int goalCluster = clusterOf(goalID);
+		int stamp = s.nextStamp();
+
+		// The goal is linked to the entrances of its cluster by one BFS inside the cluster.
+		bfsInCluster(s, goalCluster, goalID);
+		for (int k = clusterNodeStart[goalCluster]; k < clusterNodeStart[goalCluster + 1]; k++) {
+			int u = clusterNodes[k];
+			s.goalDistance[k - clusterNodeStart[goalCluster]] = s.localDistance(this, nodeCell[u]);
+		}
+		int direct = isSameOrAdjacent(startCluster, goalCluster)
+				? bfsInClusters(s, startCluster, goalCluster, startID, goalID) : -1;
+
+		// A* from the start over the entrances.
+		s.heap.clear();
+		s.open(stamp, startNode, 0, -1);
+		s.heap.push((long) heuristic(startID, goalID) << 32 | startNode);
+		while (!s.heap.isEmpty()) {
+			long top = s.heap.pop();
+			int u = (int) top;
+			if (s.closed[u] == stamp) {
+				continue;
+			}
+			s.closed[u] = stamp;
+			if (u == goalNode) {
+				break;
+			}
+			if (u == startNode) {
+				if (direct >= 0) {
+					relax(s, stamp, u, goalNode, direct, goalID);
+				}
+				bfsInCluster(s, startCluster, startID);
+				for (int k = clusterNodeStart[startCluster]; k < clusterNodeStart[startCluster + 1]; k++) {
+					int v = clusterNodes[k];
+					int d = s.localDistance(this, nodeCell[v]);
+					if (d >= 0) {
+						relax(s, stamp, u, v, d, goalID);
+					}
+				}
+				continue;
+			}
+			for (int e = edgeStart[u]; e < edgeStart[u + 1]; e++) {
+				relax(s, stamp, u, edgeTarget[e], edgeCost[e], goalID);
+			}
+			if (clusterOf(nodeCell[u]) == goalCluster) {
+				int d = s.goalDistance[indexInCluster(u, goalCluster)];
+				if (d >= 0) {
+					relax(s, stamp, u, goalNode, d, goalID);
+				}
+			}
+		}
+		if (s.closed[goalNode] != stamp) {
+			return new int[0];
+		}
+
+		// Refine the abstract path, from the goal back to the start, into cells.
+		IntList path = new IntList();
+		path.add(goalID);
+		int v = goalNode;
+		while (v != startNode) {
+			int u = s.parent[v];
+			int fromID = u == startNode ? startID : nodeCell[u];
+			int toID = v == goalNode ? goalID : nodeCell[v];
+			if (u == startNode && v == goalNode) {
+				appendPathInClusters(s, startCluster, startID, goalID, path); // the direct path.
+			} else if (clusterOf(fromID) != clusterOf(toID)) {
+				path.add(fromID); // a transition is one step.
+			} else if (fromID != toID) {
+				appendPathInCluster(s, clusterOf(fromID), toID, fromID, path);
+			}
+			v = u;
+		}
+		return path.toArray();
+	}
+
+	/**
+	 * Get the number of entrance nodes of the abstract graph.
+	 * @return the number of nodes.
+	 */
+	public int getNumOfNodes() {
+		return this.nodeCell.length;
+	}
+
+	/**
+	 * Get the number of directed edges of the abstract graph.
+	 * @return the number of edges.
+	 */
+	public int getNumOfEdges() {
+		return this.edgeTarget.length;
+	}
+
+	public int getClusterSize() {
+		return this.clusterSize;
+	}
+
+	/**
+	 * Find the runs of openings which cross a cluster border at direction d, and keep the middle opening of each run.
+	 * Two openings are in the same run only if no wall separates them on either side of the border, so every opening
+	 * of a run can reach the kept one without leaving its cluster.
+	 * @param d EAST for the vertical borders, SOUTH for the horizontal borders.
+	 * @param transitions the list the pairs of cells are appended to.
+	 */
+	private void findTransitions(Direction d, IntList transitions) {
+		int numOfRows = layout.getNumOfRows();
+		int numOfCols = layout.getNumOfCols();
+		boolean isEast = d == Direction.EAST;
+		int numOfLines = isEast ? numOfRows : numOfCols;     // cells along one border.
+		int numOfBorders = isEast ? numOfCols : numOfRows;  // positions across the borders.
+		Direction along = isEast ? Direction.SOUTH : Direction.EAST;
+		for (int b = clusterSize - 1; b < numOfBorders + clusterSize - 1; b += clusterSize) {
+			int across = Math.min(b, numOfBorders - 1);
+			int runStart = -1;
+			int previousID = -1;
+			int previousNextID = -1;
+			for (int k = 0; k <= numOfLines; k++) {
+				int ID = -1;
+				int nextID = -1;
+				if (k < numOfLines) {
+					ID = isEast ? MazeHelper.idxToID(k, across, numOfCols) : MazeHelper.idxToID(across, k, numOfCols);
+					nextID = layout.nextCellID(ID, d);
+				}
+				boolean isOpen = nextID >= 0 && clusterOf(nextID) != clusterOf(ID);
+				boolean isSameRun = runStart >= 0 && isOpen && k / clusterSize == runStart / clusterSize
+						&& layout.nextCellID(previousID, along) == ID
+						&& layout.nextCellID(previousNextID, along) == nextID;
+				if (runStart >= 0 && !isSameRun) {
+					int middle = (runStart + k - 1) / 2;
+					int middleID = isEast ? MazeHelper.idxToID(middle, across, numOfCols)
+							: MazeHelper.idxToID(across, middle, numOfCols);
+					transitions.add(middleID);
+					transitions.add(layout.nextCellID(middleID, d));
+					runStart = -1;
+				}
+				if (isOpen && runStart < 0) {
+					runStart = k;
+				}
+				previousID = ID;
+				previousNextID = nextID;
+			}
+		}
+	}
+
+	/**
+	 * Find the distances between the entrances of one cluster, by one BFS inside the cluster from each entrance.
+	 * @param cluster the index of the cluster.
+	 * @return the edges as triples of source node, target node and distance.
+	 */
+	private int[] findIntraClusterEdges(int cluster) {
+		Scratch s = scratch.get();
+		IntList edges = new IntList();
+		for (int k = clusterNodeStart[cluster]; k < clusterNodeStart[cluster + 1]; k++) {
+			int u = clusterNodes[k];
+			bfsInCluster(s, cluster, nodeCell[u]);
+			for (int l = clusterNodeStart[cluster]; l < clusterNodeStart[cluster + 1]; l++) {
+				int v = clusterNodes[l];
+				int d = s.localDistance(this, nodeCell[v]);
+				if (v != u && d >= 0) {
+					edges.add(u);
+					edges.add(v);
+					edges.add(d);
+				}
+			}
+		}
+		return edges.toArray();
+	}
+
+	/**
+	 * BFS from a cell, without leaving its cluster. The distances and the direction back to the source are kept in
+	 * the local arrays of the scratch space.
+	 * @param s the scratch space of this thread.
+	 * @param cluster the index of the cluster.
+	 * @param sourceID the ID of the cell to search from.
+	 */
+	private void bfsInCluster(Scratch s, int cluster, int sourceID) {
+		int stamp = s.nextLocalStamp();
+		int head = 0;
+		int tail = 0;
+		int local = localIndex(sourceID);
+		s.localMark[local] = stamp;
+		s.localDist[local] = 0;
+		s.queue[tail++] = sourceID;
+		while (head < tail) {
+			int ID = s.queue[head++];
+			int distance = s.localDist[localIndex(ID)];
+			for (Direction d : DIRECTIONS) {
+				int nextID = layout.nextCellID(ID, d);
+				if (nextID < 0 || clusterOf(nextID) != cluster) {
+					continue;
+				}
+				int nextLocal = localIndex(nextID);
+				if (s.localMark[nextLocal] != stamp) {
+					s.localMark[nextLocal] = stamp;
+					s.localDist[nextLocal] = distance + 1;
+					s.localBack[nextLocal] = (byte) d.ordinal();
+					s.queue[tail++] = nextID;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Append the cells of a shortest path inside one cluster, from one cell to another, excluding the first cell.
+	 * @param s the scratch space of this thread.
+	 * @param cluster the index of the cluster.
+	 * @param fromID the ID of the cell the path starts from, already in the path.
+	 * @param toID the ID of the cell the path ends at.
+	 * @param path the list the cells are appended to.
+	 */
+	private void appendPathInCluster(Scratch s, int cluster, int fromID, int toID, IntList path) {
+		bfsInCluster(s, cluster, toID);
+		int ID = fromID;
+		while (ID != toID) {
+			Direction back = DIRECTIONS[s.localBack[localIndex(ID)]];
+			ID = layout.nextCellID(ID, opposite(back));
+			path.add(ID);
+		}
+	}
+
+	/**
+	 * BFS from the starting cell to the goal, without leaving the clusters of the two cells. The direction back to the
+	 * source is kept in the region arrays of the scratch space, so {@code appendPathInClusters} can follow it later.
+	 * @param s the scratch space of this thread.
+	 * @param startCluster the index of the cluster of the starting cell.
+	 * @param goalCluster the index of the cluster of the goal.
+	 * @param startID the ID of the starting cell.
+	 * @param goalID the ID of the goal.
+	 * @return the distance from the start to the goal inside the two clusters, or -1 if the goal cannot be reached
+	 * without leaving them.
+	 */
+	private int bfsInClusters(Scratch s, int startCluster, int goalCluster, int startID, int goalID) {
+		int stamp = s.nextRegionStamp();
+		int head = 0;
+		int tail = 0;
+		int source = regionIndex(startID, startCluster);
+		s.regionMark[source] = stamp;
+		s.regionDist[source] = 0;
+		s.regionQueue[tail++] = startID;
+		while (head < tail) {
+			int ID = s.regionQueue[head++];
+			int distance = s.regionDist[regionIndex(ID, startCluster)];
+			if (ID == goalID) {
+				return distance;
+			}
+			for (Direction d : DIRECTIONS) {
+				int nextID = layout.nextCellID(ID, d);
+				if (nextID < 0) {
+					continue;
+				}
+				int cluster = clusterOf(nextID);
+				if (cluster != startCluster && cluster != goalCluster) {
+					continue;
+				}
+				int next = regionIndex(nextID, startCluster);
+				if (s.regionMark[next] != stamp) {
+					s.regionMark[next] = stamp;
+					s.regionDist[next] = distance + 1;
+					s.regionBack[next] = (byte) d.ordinal();
+					s.regionQueue[tail++] = nextID;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Append the cells of the path found by {@code bfsInClusters}, from the goal back to the start, excluding the goal.
+	 * @param s the scratch space of this thread.
+	 * @param startCluster the index of the cluster of the starting cell.
+	 * @param startID the ID of the starting cell.
+	 * @param goalID the ID of the goal, already in the path.
+	 * @param path the list the cells are appended to.
+	 */
+	private void appendPathInClusters(Scratch s, int startCluster, int startID, int goalID, IntList path) {
+		int ID = goalID;
+		while (ID != startID) {
+			Direction back = DIRECTIONS[s.regionBack[regionIndex(ID, startCluster)]];
+			ID = layout.nextCellID(ID, opposite(back));
+			path.add(ID);
+		}
+	}
+
+	/**
+	 * Whether two clusters are the same or share a border, including across the wrap of the grid.
+	 */
+	private boolean isSameOrAdjacent(int cluster, int otherCluster) {
+		int di = Math.abs(cluster / numOfClusterCols - otherCluster / numOfClusterCols);
+		int dj = Math.abs(cluster % numOfClusterCols - otherCluster % numOfClusterCols);
+		return (di == 0 && (dj <= 1 || dj == numOfClusterCols - 1))
+				|| (dj == 0 && (di <= 1 || di == numOfClusterRows - 1));
+	}
+
+	private void relax(Scratch s, int stamp, int u, int v, int cost, int goalID) {
+		int g = s.g[u] + cost;
+		if (s.closed[v] == stamp || (s.seen[v] == stamp && s.g[v] <= g)) {
+			return;
+		}
+		s.open(stamp, v, g, u);
+		int h = v >= nodeCell.length ? 0 : heuristic(nodeCell[v], goalID);
+		s.heap.push((long) (g + h) << 32 | v);
+	}
+
+	/**
+	 * Estimate the distance between two cells by the Manhattan distance around the torus, which never exceeds the
+	 * distance in a wrap or a non-wrap maze.
+	 */
+	private int heuristic(int ID, int goalID) {
+		int numOfRows = layout.getNumOfRows();
+		int numOfCols = layout.getNumOfCols();
+		int di = Math.abs(MazeHelper.IDToI(ID, numOfCols) - MazeHelper.IDToI(goalID, numOfCols));
+		int dj = Math.abs(MazeHelper.IDToJ(ID, numOfCols) - MazeHelper.IDToJ(goalID, numOfCols));
+		return Math.min(di, numOfRows - di) + Math.min(dj, numOfCols - dj);
+	}
+
+	private void addEdge(int[] fill, int u, int v, int cost) {
+		edgeTarget[fill[u]] = v;
+		edgeCost[fill[u]++] = cost;
+	}
+
+	private int clusterOf(int ID) {
+		int numOfCols = layout.getNumOfCols();
+		return MazeHelper.IDToI(ID, numOfCols) / clusterSize * numOfClusterCols
+				+ MazeHelper.IDToJ(ID, numOfCols) / clusterSize;
+	}
+
+	private int localIndex(int ID) {
+		int numOfCols = layout.getNumOfCols();
+		return MazeHelper.IDToI(ID, numOfCols) % clusterSize * clusterSize
+				+ MazeHelper.IDToJ(ID, numOfCols) % clusterSize;
+	}
+
+	/**
+	 * Index a cell of the start or of the goal cluster in the region arrays: the start cluster first, then the other.
+	 */
+	private int regionIndex(int ID, int startCluster) {
+		return localIndex(ID) + (clusterOf(ID) == startCluster ? 0 : clusterSize * clusterSize);
+	}
+
+	private int indexInCluster(int u, int cluster) {
+		for (int k = clusterNodeStart[cluster]; k < clusterNodeStart[cluster + 1]; k++) {
+			if (clusterNodes[k] == u) {
+				return k - clusterNodeStart[cluster];
+			}
+		}
+		throw new IllegalArgumentException("Node " + u + " is not in cluster " + cluster + ".\n");
+	}
+
+	private static Direction opposite(Direction d) {
+		return switch (d) {
+			case NORTH -> Direction.SOUTH;
+			case SOUTH -> Direction.NORTH;
+			case EAST -> Direction.WEST;
+			case WEST -> Direction.EAST;
+		};
+	}
+
+	/**
+	 * The {@code Scratch} holds the search arrays of one thread. Entries are valid only when their mark equals the
+	 * current stamp, so nothing is cleared between queries and a query touches only what it explores.
+	 */
+	private static final class Scratch {
+		private final int[] seen;
+		private final int[] closed;
+		private final int[] g;
+		private final int[] parent;
+		private final int[] goalDistance;
+		private final int[] localMark;
+		private final int[] localDist;
+		private final byte[] localBack;
+		private final int[] queue;
+		private final int[] regionMark;  // the region arrays cover the start and goal clusters, see bfsInClusters.
+		private final int[] regionDist;
+		private final byte[] regionBack;
+		private final int[] regionQueue;
+		private final LongMinHeap heap = new LongMinHeap();
+		private int stamp;
+		private int localStamp;
+		private int regionStamp;
+
+		private Scratch(int clusterSize, int numOfNodes) {
+			this.seen = new int[numOfNodes + 2];
+			this.closed = new int[numOfNodes + 2];
+			this.g = new int[numOfNodes + 2];
+			this.parent = new int[numOfNodes + 2];
+			this.goalDistance = new int[numOfNodes];
+			this.localMark = new int[clusterSize * clusterSize];
+			this.localDist = new int[clusterSize * clusterSize];
+			this.localBack = new byte[clusterSize * clusterSize];
+			this.queue = new int[clusterSize * clusterSize];
+			this.regionMark = new int[2 * clusterSize * clusterSize];
+			this.regionDist = new int[2 * clusterSize * clusterSize];
+			this.regionBack = new byte[2 * clusterSize * clusterSize];
+			this.regionQueue = new int[2 * clusterSize * clusterSize];
+		}
+
+		private int nextStamp() {
+			return ++stamp;
+		}
+
+		private int nextLocalStamp() {
+			return ++localStamp;
+		}
+
+		private int nextRegionStamp() {
+			return ++regionStamp;
+		}
+
+		private int localDistance(HierarchicalPathfinder index, int ID) {
+			int local = index.localIndex(ID);
+			return localMark[local] == localStamp ? localDist[local] : -1;
+		}
+
+		private void open(int stamp, int v, int distance, int from) {
+			seen[v] = stamp;
+			g[v] = distance;
+			parent[v] = from;
+		}
+	}
+
+	/**
+	 * The {@code IntList} is a growable array of int, to avoid boxing while the index is built and paths are refined.
+	 */
+	private static final class IntList {
+		private int[] values = new int[16];
+		private int size;
+
+		private void add(int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		private int[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ * The {@code Histogram} class counts non-negative int samples in buckets of equal width. Samples above the last
+ * bucket go to an overflow bucket. Histograms with the same shape can be merged, so each worker thread fills its own
+ * one and they are combined at the end.
+ */
+public final class Histogram {
+	private final int bucketWidth;
+	private final long[] counts;
+	private long overflow;
+	private long numOfSamples;
+	private long sum;
+	private int max;
+
+	/**
+	 * Constructs an empty {@code Histogram}.
+	 *
+	 * @param numOfBuckets number of buckets before the overflow bucket. Must be positive.
+	 * @param bucketWidth width of each bucket. Must be positive.
+	 */
+	public Histogram(int numOfBuckets, int bucketWidth) {
+		if (numOfBuckets <= 0 || bucketWidth <= 0) {
+			throw new IllegalArgumentException("NumOfBuckets " + numOfBuckets + " and bucketWidth " + bucketWidth +
+					" must be positive!\n");
+		}
+		this.bucketWidth = bucketWidth;
+		this.counts = new long[numOfBuckets];
+	}
+
+	/**
+	 * Count one sample.
+	 * @param value the sample. Negative values are counted as 0.
+	 */
+	public void add(int value) {
+		int v = Math.max(value, 0);
+		int bucket = v / bucketWidth;
+		if (bucket < counts.length) {
+			counts[bucket]++;
+		} else {
+			overflow++;
+		}
+		numOfSamples++;
+		sum += v;
+		max = Math.max(max, v);
+	}
+
+	/**
+	 * Add the samples of another histogram with the same shape into this one.
+	 * @param other the histogram to merge.
+	 * @throws IllegalArgumentException if the shapes are different.
+	 */
+	public void merge(Histogram other) {
+		if (other.bucketWidth != bucketWidth || other.counts.length != counts.length) {
+			throw new IllegalArgumentException("Only histograms with the same buckets can be merged.");
+		}
+		for (int k = 0; k < counts.length; k++) {
+			counts[k] += other.counts[k];
+		}
+		overflow += other.overflow;
+		numOfSamples += other.numOfSamples;
+		sum += other.sum;
+		max = Math.max(max, other.max);
+	}
+
+	public long getNumOfSamples() {
+		return this.numOfSamples;
+	}
+
+	public double getMean() {
+		return numOfSamples == 0 ? 0 : (double) sum / numOfSamples;
+	}
+
+	public int getMax() {
+		return this.max;
+	}
+
+	/**
+	 * Get the count of one bucket.
+	 * @param bucket the index of the bucket. The overflow bucket is at index numOfBuckets.
+	 * @return the number of samples in it.
+	 */
+	public long getCount(int bucket) {
+		return bucket == counts.length ? overflow : counts[bucket];
+	}
+
+	/**
+	 * Estimate the value below which the given fraction of samples fall, at bucket resolution.
+	 * @param fraction in [0, 1].
+	 * @return the upper bound of the bucket reaching the fraction, or the maximum if it is in the overflow bucket.
+	 */
+	public int getPercentile(double fraction) {
+		long target = (long) Math.ceil(fraction * numOfSamples);
+		long seen = 0;
+		for (int k = 0; k < counts.length; k++) {
+			seen += counts[k];
+			if (seen >= target) {
+				return Math.min((k + 1) * bucketWidth - 1, max);
+			}
+		}
+		return max;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder message = new StringBuilder();
+		message.append(String.format("samples %d, mean %.2f, p50 %d, p90 %d, max %d%n", numOfSamples, getMean(),
+				getPercentile(0.5), getPercentile(0.9), max));
+		for (int k = 0; k < counts.length; k++) {
+			if (counts[k] != 0) {
+				message.append(String.format("  [%d, %d): %d%n", k * bucketWidth, (k + 1) * bucketWidth, counts[k]));
+			}
+		}
+		if (overflow != 0) {
+			message.append(String.format("  >= %d: %d%n", counts.length * bucketWidth, overflow));
+		}
+		return String.valueOf(message);
+	}
+}
@@ -0,0 +1,248 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The {@code InfiniteMaze} class represents a maze without a fixed size, for exploration: the player starts at cell
+ * (0, 0) and may walk in any direction for as long as he/she likes. There is no goal location. The world is divided
+ * into square chunks. Each chunk is a {@code PerfectMaze} generated from a seed derived from (seed, chunk row, chunk
+ * column), with its gold coins and thieves placed by the same rules as every maze. Each border between two adjacent
+ * chunks gets one opening, chosen from a hash of the seed and the border itself, so both chunks agree on it whichever
+ * is generated first. Every chunk is connected inside and to its 4 neighbours, so every cell can be reached.
+ *
+ * Only the most recently used chunks are kept, in an LRU cache, so the memory stays the same however far the player
+ * travels. An evicted chunk is generated again, identically, when it is needed, except that the gold coins picked up
+ * there are back. This class is not thread-safe.
+ */
+public final class InfiniteMaze {
+	public static final int DEFAULT_CHUNK_SIZE = 32;
+	public static final int DEFAULT_CACHE_CAPACITY = 64;
+	private static final long EAST_BORDER = 0x9E3779B97F4A7C15L;
+	private static final long SOUTH_BORDER = 0xC2B2AE3D27D4EB4FL;
+	private static final long CHUNK_SEED = 0x165667B19E3779F9L;
+
+	private final long seed;
+	private final int chunkSize;
+	private final Map<ChunkKey, Chunk> chunks;
+	private long numOfGeneratedChunks;
+	private long playerI;
+	private long playerJ;
+	private int gold;
+
+	/**
+	 * Constructs an {@code InfiniteMaze} object with the default chunk size and cache capacity.
+	 *
+	 * @param seed seed of the generation. The same seed always generates the same world.
+	 */
+	public InfiniteMaze(long seed) {
+		this(seed, DEFAULT_CHUNK_SIZE, DEFAULT_CACHE_CAPACITY);
+	}
+
+	/**
+	 * Constructs an {@code InfiniteMaze} object.
+	 *
+	 * @param seed seed of the generation. The same seed always generates the same world.
+	 * @param chunkSize number of rows and columns of a chunk. Must be at least 2.
+	 * @param cacheCapacity number of chunks kept in memory. Must be at least 1.
+	 * @throws IllegalArgumentException if {@code chunkSize} or {@code cacheCapacity} is too small.
+	 */
+	public InfiniteMaze(long seed, int chunkSize, int cacheCapacity) {
+		if (chunkSize < 2 || cacheCapacity < 1) {
+			throw new IllegalArgumentException("ChunkSize " + chunkSize + " must be at least 2 and cacheCapacity " +
+					cacheCapacity + " at least 1!\n");
+		}
+		this.seed = seed;
+		this.chunkSize = chunkSize;
+		// An access-ordered map evicts its least recently used chunk once the capacity is exceeded.
+		this.chunks = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<ChunkKey, Chunk> eldest) {
+				return size() > cacheCapacity;
+			}
+		};
+	}
+
+	/**
+	 * Move the player if no wall stands at the direction, then pick up the gold coin or meet the thief of the entered
+	 * cell, like {@code GeneralMaze}.
+	 * @param d a {@code Direction} the player tries to move to.
+	 * @return {@code MoveStatus.MOVED}, or {@code MoveStatus.BLOCKED} if a wall stands at the direction.
+	 */
+	public int tryMove(Direction d) {
+		if (hasWall(playerI, playerJ, d)) {
+			return MoveStatus.BLOCKED;
+		}
+		switch (d) {
+			case NORTH -> playerI--;
+			case SOUTH -> playerI++;
+			case EAST -> playerJ++;
+			case WEST -> playerJ--;
+		}
+		Chunk chunk = chunkAt(playerI, playerJ);
+		int ID = localID(playerI, playerJ);
+		if (chunk.hasGoldCoin(ID)) {
+			gold++;
+			chunk.removeGoldCoin(ID);
+		} else if (chunk.hasThief(ID)) {
+			gold = MazeHelper.goldAfterThiefEncounter(gold);
+		}
+		return MoveStatus.MOVED;
+	}
+
+	/**
+	 * Check whether a wall stands at direction d of a cell, generating its chunk if needed.
+	 * @param i the row of the cell, any long.
+	 * @param j the column of the cell, any long.
+	 * @param d a {@code Direction}.
+	 * @return true if a wall stands there, otherwise false.
+	 */
+	public boolean hasWall(long i, long j, Direction d) {
+		return (chunkAt(i, j).wallMasks[localID(i, j)] & (1 << d.ordinal())) != 0;
+	}
+
+	public boolean hasGoldCoin(long i, long j) {
+		return chunkAt(i, j).hasGoldCoin(localID(i, j));
+	}
+
+	public boolean hasThief(long i, long j) {
+		return chunkAt(i, j).hasThief(localID(i, j));
+	}
+
+	public long getPlayerI() {
+		return this.playerI;
+	}
+
+	public long getPlayerJ() {
+		return this.playerJ;
+	}
+
+	public int getPlayerGoldCount() {
+		return this.gold;
+	}
+
+	public int getChunkSize() {
+		return this.chunkSize;
+	}
+
+	/**
+	 * Get the number of chunks in memory, never more than the cache capacity.
+	 * @return the number of cached chunks.
+	 */
+	public int getNumOfCachedChunks() {
+		return this.chunks.size();
+	}
+
+	/**
+	 * Get the number of chunks generated so far, counting every chunk generated again after its eviction.
+	 * @return the number of generated chunks.
+	 */
+	public long getNumOfGeneratedChunks() {
+		return this.numOfGeneratedChunks;
+	}
+
+	/**
+	 * Find the chunk of a cell, generating it on a cache miss.
+	 */
+	private Chunk chunkAt(long i, long j) {
+		ChunkKey key = new ChunkKey(Math.floorDiv(i, chunkSize), Math.floorDiv(j, chunkSize));
+		Chunk chunk = chunks.get(key);
+		if (chunk == null) {
+			chunk = generateChunk(key.row(), key.col());
+			chunks.put(key, chunk);
+		}
+		return chunk;
+	}
+
+	/**
+	 * Generate a chunk: a seeded perfect maze, with one opening cut through each of its 4 borders.
+	 * @param row the row of the chunk.
+	 * @param col the column of the chunk.
+	 * @return the new chunk.
+	 */
+	private Chunk generateChunk(long row, long col) {
+		numOfGeneratedChunks++;
+		GeneralMaze maze = new PerfectMaze(chunkSize, chunkSize, new Location(0, 0),
+				new Location(chunkSize - 1, chunkSize - 1), hash(CHUNK_SEED, row, col));
+		byte[] wallMasks = maze.getWallMasks();
+		// Each border is owned by the chunk to its west or north, which names it in the hash.
+		int east = borderOffset(EAST_BORDER, row, col);
+		int west = borderOffset(EAST_BORDER, row, col - 1);
+		int south = borderOffset(SOUTH_BORDER, row, col);
+		int north = borderOffset(SOUTH_BORDER, row - 1, col);
+		wallMasks[MazeHelper.idxToID(east, chunkSize - 1, chunkSize)] &= ~(1 << Direction.EAST.ordinal());
+		wallMasks[MazeHelper.idxToID(west, 0, chunkSize)] &= ~(1 << Direction.WEST.ordinal());
+		wallMasks[MazeHelper.idxToID(chunkSize - 1, south, chunkSize)] &= ~(1 << Direction.SOUTH.ordinal());
+		wallMasks[MazeHelper.idxToID(0, north, chunkSize)] &= ~(1 << Direction.NORTH.ordinal());
+		return new Chunk(wallMasks, maze.getGoldCoinCellIDs(), maze.getThiefCellIDs());
+	}
+
+	/**
+	 * Find where the opening of a border is, along the border.
+	 * @param border {@code EAST_BORDER} or {@code SOUTH_BORDER}.
+	 * @param row the row of the chunk which owns the border.
+	 * @param col the column of the chunk which owns the border.
+	 * @return the offset of the opening, from 0 to chunkSize - 1.
+	 */
+	private int borderOffset(long border, long row, long col) {
+		return (int) Math.floorMod(hash(border, row, col), (long) chunkSize);
+	}
+
+	private int localID(long i, long j) {
+		return MazeHelper.idxToID((int) Math.floorMod(i, (long) chunkSize), (int) Math.floorMod(j, (long) chunkSize),
+				chunkSize);
+	}
+
+	/**
+	 * Hash the seed with a salt and the coordinates of a chunk, by the finalizer of SplitMix64.
+	 */
+	private long hash(long salt, long row, long col) {
+		long z = seed ^ salt;
+		z = mix(z + row);
+		z = mix(z + col);
+		return z;
+	}
+
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * The {@code ChunkKey} record represents the coordinates of a chunk, in chunks.
+	 */
+	private record ChunkKey(long row, long col) {
+	}
+
+	/**
+	 * The {@code Chunk} class holds the walls and items of one chunk. The items are kept as bitsets.
+	 */
+	private static final class Chunk {
+		private final byte[] wallMasks;
+		private final long[] goldBits;
+		private final long[] thiefBits;
+
+		private Chunk(byte[] wallMasks, int[] goldCoinCellIDs, int[] thiefCellIDs) {
+			this.wallMasks = wallMasks;
+			this.goldBits = new long[(wallMasks.length + 63) >>> 6];
+			this.thiefBits = new long[goldBits.length];
+			for (int ID : goldCoinCellIDs) {
+				goldBits[ID >>> 6] |= 1L << ID;
+			}
+			for (int ID : thiefCellIDs) {
+				thiefBits[ID >>> 6] |= 1L << ID;
+			}
+		}
+
+		private boolean hasGoldCoin(int ID) {
+			return (goldBits[ID >>> 6] & (1L << ID)) != 0;
+		}
+
+		private void removeGoldCoin(int ID) {
+			goldBits[ID >>> 6] &= ~(1L << ID);
+		}
+
+		private boolean hasThief(int ID) {
+			return (thiefBits[ID >>> 6] & (1L << ID)) != 0;
+		}
+	}
+}
@@ -0,0 +1,432 @@
+import java.util.stream.IntStream;
+
+/**
+ * The {@code JumpPointSearch} class finds shortest paths by jump point search (JPS) adapted to 4-connected grids with
+ * walls between cells. Among the many shortest paths of an open room, only the canonical ones are searched: they move
+ * horizontally first and turn vertical only where they must. A search jumps along straight lines and adds to the open
+ * list only the jump points: the goal, the cells where a vertical line must turn because the horizontal-first path to
+ * the side is walled, and the cells of a horizontal line from which such a vertical jump starts. Open rooms are then
+ * crossed with a handful of expansions instead of one per cell.
+ *
+ * The walls are read from one bitset per direction, in row-major order, so a straight scan reads consecutive bits.
+ * Scans follow the torn down border walls of a wrap maze to the opposite side, and stop after a full turn.
+ * The index is immutable and can be shared by any number of threads.
+ */
+public final class JumpPointSearch {
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final int numOfRows;
+	private final int numOfCols;
+	private final long[][] openBits;  // openBits[d.ordinal()] has bit ID set when cell ID is open at direction d.
+	private final int[][] reach;      // reach[v.ordinal()][ID] is the number of steps a vertical jump from ID scans.
+	private final long[][] turnBits;  // turnBits[v.ordinal()] has bit ID set when a vertical jump ends at a jump point.
+	private final long[][] stopBits;  // stopBits[h.ordinal() - 2] has bit ID set when a horizontal scan stops at ID.
+	private final ThreadLocal<Scratch> scratch;
+
+	/**
+	 * Constructs a {@code JumpPointSearch} object. The wall bitsets are built in parallel, one per direction, then the
+	 * vertical jumps of every cell are precomputed in parallel, one column at a time.
+	 *
+	 * @param layout the layout to search.
+	 */
+	public JumpPointSearch(MazeLayout layout) {
+		this.numOfRows = layout.getNumOfRows();
+		this.numOfCols = layout.getNumOfCols();
+		int numOfCells = layout.getNumOfCells();
+		int numOfWords = (numOfCells + 63) >>> 6;
+		this.openBits = IntStream.range(0, DIRECTIONS.length).parallel().mapToObj(d -> {
+			long[] bits = new long[numOfWords];
+			for (int ID = 0; ID < numOfCells; ID++) {
+				if ((layout.getWallMask(ID) & (1 << d)) == 0) {
+					bits[ID >>> 6] |= 1L << ID;
+				}
+			}
+			return bits;
+		}).toArray(long[][]::new);
+
+		this.reach = new int[2][numOfCells];
+		this.turnBits = new long[2][numOfWords];
+		for (Direction v : new Direction[] {Direction.NORTH, Direction.SOUTH}) {
+			long[][] columnTurns = IntStream.range(0, numOfCols).parallel()
+					.mapToObj(j -> precomputeColumn(j, v)).toArray(long[][]::new);
+			// Each column wrote its own reach entries; its turn bits share words with other columns, so merge here.
+			for (int j = 0; j < numOfCols; j++) {
+				for (int i = 0; i < numOfRows; i++) {
+					if ((columnTurns[j][i >>> 6] & (1L << i)) != 0) {
+						int ID = MazeHelper.idxToID(i, j, numOfCols);
+						turnBits[v.ordinal()][ID >>> 6] |= 1L << ID;
+					}
+				}
+			}
+		}
+
+		// A horizontal scan stops at a cell where a vertical jump finds a jump point, or at a wall ahead.
+		this.stopBits = new long[2][numOfWords];
+		for (int w = 0; w < numOfWords; w++) {
+			long turns = turnBits[0][w] | turnBits[1][w];
+			long valid = w == numOfWords - 1 && (numOfCells & 63) != 0 ? (1L << numOfCells) - 1 : -1L;
+			stopBits[0][w] = (turns | ~openBits[Direction.EAST.ordinal()][w]) & valid;
+			stopBits[1][w] = (turns | ~openBits[Direction.WEST.ordinal()][w]) & valid;
+		}
+		this.scratch = ThreadLocal.withInitial(() -> new Scratch(numOfCells));
+	}
+
+	/**
+	 * Find a shortest path between two cells.
+	 * @param startID the ID of the starting cell.
+	 * @param goalID the ID of the goal cell.
+	 * @return the IDs of the cells of the path, from the goal back to the start like {@code getSolveCellIDs}, or an
+	 * empty array if the goal cannot be reached.
+	 */
+	public int[] findPath(int startID, int goalID) {
+		MazeEvents.Solve event = new MazeEvents.Solve();
+		event.begin();
+		long start = MazeMetrics.start();
+		Scratch s = scratch.get();
+		int stamp = s.nextStamp();
+		long nodesExpanded = 0;
+		s.heap.clear();
+		s.seen[startID] = stamp;
+		s.g[startID] = 0;
+		s.parent[startID] = startID;
+		s.arrival[startID] = -1;
+		s.heap.push((long) heuristic(startID, goalID) << 32 | startID);
+		boolean isGoalReached = false;
+		while (!s.heap.isEmpty()) {
+			int ID = (int) s.heap.pop();
+			if (s.closed[ID] == stamp) {
+				continue;
+			}
+			s.closed[ID] = stamp;
+			nodesExpanded++;
+			if (ID == goalID) {
+				isGoalReached = true;
+				break;
+			}
+			for (Direction d : DIRECTIONS) {
+				if (!isOpen(ID, d) || !isNaturalOrForced(ID, s.arrival[ID], d)) {
+					continue;
+				}
+				int jumpID = isHorizontal(d) ? jumpHorizontal(ID, d, goalID) : jumpVertical(ID, d, goalID);
+				if (jumpID < 0 || s.closed[jumpID] == stamp) {
+					continue;
+				}
+				int g = s.g[ID] + stepsBetween(ID, jumpID, d);
+				if (s.seen[jumpID] != stamp || g < s.g[jumpID]) {
+					s.seen[jumpID] = stamp;
+					s.g[jumpID] = g;
+					s.parent[jumpID] = ID;
+					s.arrival[jumpID] = (byte) d.ordinal();
+					s.heap.push((long) (g + heuristic(jumpID, goalID)) << 32 | jumpID);
+				}
+			}
+		}
+
+		// Fill the straight lines between the jump points, from the goal back to the start.
+		int[] path = new int[isGoalReached ? s.g[goalID] + 1 : 0];
+		int k = 0;
+		for (int ID = goalID; k < path.length; ) {
+			path[k++] = ID;
+			if (ID == startID) {
+				break;
+			}
+			int parentID = s.parent[ID];
+			Direction back = opposite(DIRECTIONS[s.arrival[ID]]);
+			while (ID != parentID) {
+				ID = step(ID, back);
+				if (ID != parentID) {
+					path[k++] = ID;
+				}
+			}
+		}
+		MazeMetrics.SOLVE.stop(start);
+		MazeMetrics.SOLVE_NODES_EXPANDED.add(nodesExpanded);
+		event.end();
+		if (event.shouldCommit()) {
+			event.solver = "jps";
+			event.nodesExpanded = nodesExpanded;
+			event.pathLength = path.length;
+			event.commit();
+		}
+		return path;
+	}
+
+	/**
+	 * Check whether a direction is worth searching from a jump point. After a horizontal move every direction but
+	 * going back is natural. After a vertical move only going on is natural, and a horizontal side is searched only if
+	 * it is forced: the horizontal-first path to that side cell, through the side of the previous cell, is walled.
+	 * @param ID the ID of the jump point.
+	 * @param arrival the ordinal of the {@code Direction} the jump point was reached by, or -1 for the start.
+	 * @param d the {@code Direction} to search.
+	 * @return true if the direction is searched, otherwise false.
+	 */
+	private boolean isNaturalOrForced(int ID, int arrival, Direction d) {
+		if (arrival < 0) {
+			return true;
+		}
+		Direction in = DIRECTIONS[arrival];
+		if (d == opposite(in)) {
+			return false;
+		}
+		if (isHorizontal(in) || d == in) {
+			return true;
+		}
+		return isForced(step(ID, opposite(in)), in, d);
+	}
+
+	/**
+	 * Jump horizontally: scan a row until the goal, or a cell from which a vertical jump finds a jump point. The scan
+	 * reads the stop bitset a word at a time, and only the cell in the column of the goal is checked on its own.
+	 * @param fromID the ID of the cell the jump starts from.
+	 * @param h EAST or WEST.
+	 * @param goalID the ID of the goal cell.
+	 * @return the ID of the jump point, or -1 if the scan ends at a wall or turns around the whole row.
+	 */
+	private int jumpHorizontal(int fromID, Direction h, int goalID) {
+		int rowStart = fromID - MazeHelper.IDToJ(fromID, numOfCols);
+		int rowEnd = rowStart + numOfCols;
+		long[] stops = stopBits[h.ordinal() - 2];
+		int stopID;
+		if (h == Direction.EAST) {
+			stopID = nextSetBit(stops, fromID + 1, rowEnd);
+			if (stopID < 0) {
+				stopID = nextSetBit(stops, rowStart, fromID);
+			}
+		} else {
+			stopID = previousSetBit(stops, fromID - 1, rowStart);
+			if (stopID < 0) {
+				stopID = previousSetBit(stops, rowEnd - 1, fromID + 1);
+			}
+		}
+		// Without a stop the scan turns around the whole row of a wrap maze.
+		int steps = stopID < 0 ? numOfCols - 1 : stepsBetween(fromID, stopID, h);
+		int crossID = rowStart + MazeHelper.IDToJ(goalID, numOfCols);
+		if (crossID != fromID && stepsBetween(fromID, crossID, h) <= steps && reachesGoal(crossID, goalID)) {
+			return crossID;
+		}
+		return stopID >= 0 && isTurn(stopID) ? stopID : -1;
+	}
+
+	/**
+	 * Jump vertically: scan a column until the goal, or a cell with a forced horizontal side. The scans are
+	 * precomputed, so a jump takes constant time.
+	 * @param fromID the ID of the cell the jump starts from.
+	 * @param v NORTH or SOUTH.
+	 * @param goalID the ID of the goal cell.
+	 * @return the ID of the jump point, or -1 if the scan ends at a wall or turns around the whole column.
+	 */
+	private int jumpVertical(int fromID, Direction v, int goalID) {
+		int steps = reach[v.ordinal()][fromID];
+		if (fromID != goalID && MazeHelper.IDToJ(fromID, numOfCols) == MazeHelper.IDToJ(goalID, numOfCols)
+				&& stepsBetween(fromID, goalID, v) <= steps) {
+			return goalID;
+		}
+		if ((turnBits[v.ordinal()][fromID >>> 6] & (1L << fromID)) == 0) {
+			return -1;
+		}
+		int i = MazeHelper.IDToI(fromID, numOfCols);
+		i = Math.floorMod(v == Direction.SOUTH ? i + steps : i - steps, numOfRows);
+		return MazeHelper.idxToID(i, MazeHelper.IDToJ(fromID, numOfCols), numOfCols);
+	}
+
+	/**
+	 * Precompute the vertical jumps of one column. A jump from a cell goes on as far as the jump from the next cell,
+	 * so the column is walked backwards from a cell where every jump through it ends: at a wall, or right before a
+	 * cell with a forced side. A wrap column without such a cell is scanned all the way around from every cell.
+	 * @param j the index of the column.
+	 * @param v the {@code Direction} of the jumps.
+	 * @return the turn bits of the column, indexed by row.
+	 */
+	private long[] precomputeColumn(int j, Direction v) {
+		long[] turns = new long[(numOfRows + 63) >>> 6];
+		int[] columnReach = reach[v.ordinal()];
+		int endID = -1;
+		for (int i = numOfRows - 1; i >= 0 && endID < 0; i--) {
+			int ID = MazeHelper.idxToID(i, j, numOfCols);
+			if (!isOpen(ID, v) || isForced(ID, v, Direction.EAST) || isForced(ID, v, Direction.WEST)) {
+				endID = ID;
+			}
+		}
+		if (endID < 0) {
+			for (int i = 0; i < numOfRows; i++) {
+				columnReach[MazeHelper.idxToID(i, j, numOfCols)] = numOfRows - 1;
+			}
+			return turns;
+		}
+		Direction back = opposite(v);
+		int ID = endID;
+		for (int k = 0; k < numOfRows; k++) {
+			boolean isTurn;
+			if (!isOpen(ID, v)) {
+				columnReach[ID] = 0;
+				isTurn = false;
+			} else if (isForced(ID, v, Direction.EAST) || isForced(ID, v, Direction.WEST)) {
+				columnReach[ID] = 1;
+				isTurn = true;
+			} else {
+				int nextID = step(ID, v);
+				columnReach[ID] = columnReach[nextID] + 1;
+				int i = MazeHelper.IDToI(nextID, numOfCols);
+				isTurn = (turns[i >>> 6] & (1L << i)) != 0;
+				if (columnReach[ID] == numOfRows) {
+					// The jump would end at the cell itself, after a whole turn.
+					columnReach[ID] = numOfRows - 1;
+					isTurn = false;
+				}
+			}
+			if (isTurn) {
+				int i = MazeHelper.IDToI(ID, numOfCols);
+				turns[i >>> 6] |= 1L << i;
+			}
+			ID = step(ID, back);
+		}
+		return turns;
+	}
+
+	/**
+	 * Check whether the goal is the cell itself, or is reached by a vertical jump from it.
+	 */
+	private boolean reachesGoal(int ID, int goalID) {
+		return ID == goalID || jumpVertical(ID, Direction.NORTH, goalID) == goalID
+				|| jumpVertical(ID, Direction.SOUTH, goalID) == goalID;
+	}
+
+	private boolean isTurn(int ID) {
+		return ((turnBits[0][ID >>> 6] | turnBits[1][ID >>> 6]) & (1L << ID)) != 0;
+	}
+
+	/**
+	 * Check whether the side cell at direction h of a cell, reached by a vertical move v, can only be reached through
+	 * it by a shortest canonical path.
+	 * @param previousID the ID of the cell the vertical move comes from.
+	 * @param v the vertical {@code Direction} of the move.
+	 * @param h the horizontal {@code Direction} of the side.
+	 * @return true if the side is open from the reached cell but walled on the horizontal-first path, otherwise false.
+	 */
+	private boolean isForced(int previousID, Direction v, Direction h) {
+		int ID = step(previousID, v);
+		return isOpen(ID, h) && (!isOpen(previousID, h) || !isOpen(step(previousID, h), v));
+	}
+
+	private boolean isOpen(int ID, Direction d) {
+		return (openBits[d.ordinal()][ID >>> 6] & (1L << ID)) != 0;
+	}
+
+	/**
+	 * Find the first set bit in [from, to).
+	 * @return the index of the bit, or -1 if there is none.
+	 */
+	private static int nextSetBit(long[] bits, int from, int to) {
+		if (from >= to) {
+			return -1;
+		}
+		int w = from >>> 6;
+		long word = bits[w] & (-1L << from);
+		while (word == 0) {
+			if (++w << 6 >= to) {
+				return -1;
+			}
+			word = bits[w];
+		}
+		int index = (w << 6) + Long.numberOfTrailingZeros(word);
+		return index < to ? index : -1;
+	}
+
+	/**
+	 * Find the last set bit in [to, from], scanning down from {@code from}.
+	 * @return the index of the bit, or -1 if there is none.
+	 */
+	private static int previousSetBit(long[] bits, int from, int to) {
+		if (from < to) {
+			return -1;
+		}
+		int w = from >>> 6;
+		long word = bits[w] & (-1L >>> (63 - (from & 63)));
+		while (word == 0) {
+			if (w << 6 <= to) {
+				return -1;
+			}
+			word = bits[--w];
+		}
+		int index = (w << 6) + 63 - Long.numberOfLeadingZeros(word);
+		return index >= to ? index : -1;
+	}
+
+	/**
+	 * Find the ID of the adjacent cell at direction d, wrapping around the border. A non-wrap maze always keeps its
+	 * border walls, so the wrapped cell is only ever reached through a torn down border wall.
+	 */
+	private int step(int ID, Direction d) {
+		int i = MazeHelper.IDToI(ID, numOfCols);
+		int j = MazeHelper.IDToJ(ID, numOfCols);
+		return switch (d) {
+			case NORTH -> MazeHelper.idxToID(i == 0 ? numOfRows - 1 : i - 1, j, numOfCols);
+			case SOUTH -> MazeHelper.idxToID(i == numOfRows - 1 ? 0 : i + 1, j, numOfCols);
+			case EAST -> MazeHelper.idxToID(i, j == numOfCols - 1 ? 0 : j + 1, numOfCols);
+			case WEST -> MazeHelper.idxToID(i, j == 0 ? numOfCols - 1 : j - 1, numOfCols);
+		};
+	}
+
+	/**
+	 * Count the steps of a straight jump at direction d, wrapping around the border.
+	 */
+	private int stepsBetween(int fromID, int toID, Direction d) {
+		int di = MazeHelper.IDToI(toID, numOfCols) - MazeHelper.IDToI(fromID, numOfCols);
+		int dj = MazeHelper.IDToJ(toID, numOfCols) - MazeHelper.IDToJ(fromID, numOfCols);
+		return switch (d) {
+			case NORTH -> Math.floorMod(-di, numOfRows);
+			case SOUTH -> Math.floorMod(di, numOfRows);
+			case EAST -> Math.floorMod(dj, numOfCols);
+			case WEST -> Math.floorMod(-dj, numOfCols);
+		};
+	}
+
+	/**
+	 * Estimate the distance between two cells by the Manhattan distance around the torus, which never exceeds the
+	 * distance in a wrap or a non-wrap maze.
+	 */
+	private int heuristic(int ID, int goalID) {
+		int di = Math.abs(MazeHelper.IDToI(ID, numOfCols) - MazeHelper.IDToI(goalID, numOfCols));
+		int dj = Math.abs(MazeHelper.IDToJ(ID, numOfCols) - MazeHelper.IDToJ(goalID, numOfCols));
+		return Math.min(di, numOfRows - di) + Math.min(dj, numOfCols - dj);
+	}
+
+	private static boolean isHorizontal(Direction d) {
+		return d == Direction.EAST || d == Direction.WEST;
+	}
+
+	private static Direction opposite(Direction d) {
+		return switch (d) {
+			case NORTH -> Direction.SOUTH;
+			case SOUTH -> Direction.NORTH;
+			case EAST -> Direction.WEST;
+			case WEST -> Direction.EAST;
+		};
+	}
+
+	/**
+	 * The {@code Scratch} holds the search arrays of one thread. Entries are valid only when their mark equals the
+	 * current stamp, so nothing is cleared between queries.
+	 */
+	private static final class Scratch {
+		private final int[] seen;
+		private final int[] closed;
+		private final int[] g;
+		private final int[] parent;
+		private final byte[] arrival;
+		private final LongMinHeap heap = new LongMinHeap();
+		private int stamp;
+
+		private Scratch(int numOfCells) {
+			this.seen = new int[numOfCells];
+			this.closed = new int[numOfCells];
+			this.g = new int[numOfCells];
+			this.parent = new int[numOfCells];
+			this.arrival = new byte[numOfCells];
+		}
+
+		private int nextStamp() {
+			return ++stamp;
+		}
+	}
+}
@@ -0,0 +1,274 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The {@code LandmarkIndex} class speeds up repeated path queries on one maze layout by the ALT technique (A*,
+ * landmarks, triangle inequality). A few landmark cells are chosen and the BFS distance from each landmark to every
+ * cell is stored. For any landmark L, |d(L, a) - d(L, b)| never exceeds the distance between cells a and b, so the
+ * largest of these differences is an admissible A* heuristic which, unlike the Manhattan distance, knows about the
+ * detours the walls force. The distances are stored as 16 bits per cell when the maze is small enough, otherwise as
+ * ints. The index is immutable and can be shared by any number of threads.
+ */
+public final class LandmarkIndex {
+	private static final Direction[] DIRECTIONS = Direction.values();
+	private static final char UNREACHABLE_CHAR = Character.MAX_VALUE;
+
+	/**
+	 * The {@code Selection} represents how the landmarks are chosen.
+	 */
+	public enum Selection {
+		/**
+		 * Each landmark is the cell farthest from the landmarks already chosen. The landmarks spread well, but each
+		 * one depends on the BFS of the previous ones, so the BFS runs one after another.
+		 */
+		FARTHEST,
+		/**
+		 * The landmarks are spread evenly along the border of the grid, the BFS of all landmarks run in parallel.
+		 */
+		PERIMETER
+	}
+
+	private final MazeLayout layout;
+	private final int[] landmarks;
+	private final char[][] charDistances; // used when every distance fits in 16 bits, otherwise null.
+	private final int[][] intDistances;   // used otherwise, -1 when unreachable.
+	private final ThreadLocal<Scratch> scratch;
+
+	/**
+	 * Constructs a {@code LandmarkIndex} object.
+	 *
+	 * @param layout the layout to index.
+	 * @param numOfLandmarks the number of landmarks. Must be positive.
+	 * @param selection how the landmarks are chosen.
+	 * @throws IllegalArgumentException if {@code numOfLandmarks} is not positive.
+	 */
+	public LandmarkIndex(MazeLayout layout, int numOfLandmarks, Selection selection) {
+		if (numOfLandmarks <= 0) {
+			throw new IllegalArgumentException("NumOfLandmarks " + numOfLandmarks + " must be positive!\n");
+		}
+		this.layout = layout;
+		int numOfCells = layout.getNumOfCells();
+		int[][] distances;
+		if (selection == Selection.FARTHEST) {
+			int count = Math.min(numOfLandmarks, numOfCells);
+			this.landmarks = new int[count];
+			distances = new int[count][];
+			// The first landmark is the cell farthest from the starting point.
+			int[] minDistance = layout.distancesFrom(layout.getStartCellID());
+			for (int k = 0; k < count; k++) {
+				int farthest = 0;
+				for (int ID = 1; ID < numOfCells; ID++) {
+					if (minDistance[ID] > minDistance[farthest]) {
+						farthest = ID;
+					}
+				}
+				landmarks[k] = farthest;
+				distances[k] = layout.distancesFrom(farthest);
+				if (k == 0) {
+					minDistance = distances[0].clone();
+				} else {
+					for (int ID = 0; ID < numOfCells; ID++) {
+						minDistance[ID] = Math.min(minDistance[ID], distances[k][ID]);
+					}
+				}
+			}
+		} else {
+			this.landmarks = perimeterCells(numOfLandmarks);
+			distances = Arrays.stream(landmarks).parallel().mapToObj(layout::distancesFrom).toArray(int[][]::new);
+		}
+
+		if (numOfCells < UNREACHABLE_CHAR) {
+			// A distance is always less than the number of cells, so it fits in a char.
+			this.charDistances = new char[distances.length][];
+			IntStream.range(0, distances.length).parallel().forEach(k -> charDistances[k] = toChars(distances[k]));
+			this.intDistances = null;
+		} else {
+			this.charDistances = null;
+			this.intDistances = distances;
+		}
+		this.scratch = ThreadLocal.withInitial(() -> new Scratch(numOfCells));
+	}
+
+	/**
+	 * Get a lower bound of the distance between two cells, by the triangle inequality over every landmark and by the
+	 * Manhattan distance around the torus.
+	 * @param ID the ID of a cell.
+	 * @param otherID the ID of another cell.
+	 * @return a lower bound of the number of steps between the cells.
+	 */
+	public int lowerBound(int ID, int otherID) {
+		int numOfRows = layout.getNumOfRows();
+		int numOfCols = layout.getNumOfCols();
+		int di = Math.abs(MazeHelper.IDToI(ID, numOfCols) - MazeHelper.IDToI(otherID, numOfCols));
+		int dj = Math.abs(MazeHelper.IDToJ(ID, numOfCols) - MazeHelper.IDToJ(otherID, numOfCols));
+		int bound = Math.min(di, numOfRows - di) + Math.min(dj, numOfCols - dj);
+		if (charDistances != null) {
+			for (char[] distance : charDistances) {
+				char a = distance[ID];
+				char b = distance[otherID];
+				if (a != UNREACHABLE_CHAR && b != UNREACHABLE_CHAR) {
+					bound = Math.max(bound, Math.abs(a - b));
+				}
+			}
+		} else {
+			for (int[] distance : intDistances) {
+				int a = distance[ID];
+				int b = distance[otherID];
+				if (a >= 0 && b >= 0) {
+					bound = Math.max(bound, Math.abs(a - b));
+				}
+			}
+		}
+		return bound;
+	}
+
+	/**
+	 * Find a shortest path between two cells by A* with the landmark lower bounds.
+	 * @param startID the ID of the starting cell.
+	 * @param goalID the ID of the goal cell.
+	 * @return the IDs of the cells of the path, from the goal back to the start like {@code getSolveCellIDs}, or an
+	 * empty array if the goal cannot be reached.
+	 */
+	public int[] findPath(int startID, int goalID) {
+		MazeEvents.Solve event = new MazeEvents.Solve();
+		event.begin();
+		long start = MazeMetrics.start();
+		Scratch s = scratch.get();
+		int stamp = s.nextStamp();
+		long nodesExpanded = 0;
+		s.heap.clear();
+		s.seen[startID] = stamp;
+		s.g[startID] = 0;
+		s.parent[startID] = startID;
+		s.heap.push((long) lowerBound(startID, goalID) << 32 | startID);
+		boolean isGoalReached = false;
+		while (!s.heap.isEmpty()) {
+			int ID = (int) s.heap.pop();
+			if (s.closed[ID] == stamp) {
+				continue;
+			}
+			s.closed[ID] = stamp;
+			nodesExpanded++;
+			if (ID == goalID) {
+				isGoalReached = true;
+				break;
+			}
+			for (Direction d : DIRECTIONS) {
+				int nextID = layout.nextCellID(ID, d);
+				if (nextID < 0 || s.closed[nextID] == stamp) {
+					continue;
+				}
+				int g = s.g[ID] + 1;
+				if (s.seen[nextID] != stamp || g < s.g[nextID]) {
+					s.seen[nextID] = stamp;
+					s.g[nextID] = g;
+					s.parent[nextID] = ID;
+					s.heap.push((long) (g + lowerBound(nextID, goalID)) << 32 | nextID);
+				}
+			}
+		}
+
+		int[] path = new int[isGoalReached ? s.g[goalID] + 1 : 0];
+		for (int k = 0, ID = goalID; k < path.length; k++, ID = s.parent[ID]) {
+			path[k] = ID;
+		}
+		MazeMetrics.SOLVE.stop(start);
+		MazeMetrics.SOLVE_NODES_EXPANDED.add(nodesExpanded);
+		event.end();
+		if (event.shouldCommit()) {
+			event.solver = "alt";
+			event.nodesExpanded = nodesExpanded;
+			event.pathLength = path.length;
+			event.commit();
+		}
+		return path;
+	}
+
+	/**
+	 * Find the paths of many queries in parallel.
+	 * @param startIDs the IDs of the starting cells.
+	 * @param goalIDs the IDs of the goal cells, one per starting cell.
+	 * @return the path of each query, see {@code findPath}.
+	 * @throws IllegalArgumentException if the arrays have different lengths.
+	 */
+	public int[][] findPaths(int[] startIDs, int[] goalIDs) {
+		if (startIDs.length != goalIDs.length) {
+			throw new IllegalArgumentException("Every query needs one starting cell and one goal cell.\n");
+		}
+		return IntStream.range(0, startIDs.length).parallel()
+				.mapToObj(k -> findPath(startIDs[k], goalIDs[k])).toArray(int[][]::new);
+	}
+
+	/**
+	 * Get the IDs of the landmark cells.
+	 * @return a copy of the landmarks.
+	 */
+	public int[] getLandmarks() {
+		return this.landmarks.clone();
+	}
+
+	/**
+	 * Spread cells evenly along the border of the grid, clockwise from the top-left corner.
+	 * @param count the number of cells.
+	 * @return the IDs of the distinct cells, at most the number of border cells.
+	 */
+	private int[] perimeterCells(int count) {
+		int numOfRows = layout.getNumOfRows();
+		int numOfCols = layout.getNumOfCols();
+		int perimeter = numOfRows == 1 || numOfCols == 1 ? numOfRows * numOfCols
+				: 2 * (numOfRows + numOfCols) - 4;
+		int[] cells = new int[Math.min(count, perimeter)];
+		for (int k = 0; k < cells.length; k++) {
+			int p = (int) ((long) k * perimeter / cells.length);
+			int i;
+			int j;
+			if (p < numOfCols) {
+				i = 0;
+				j = p;
+			} else if (p < numOfCols + numOfRows - 1) {
+				i = p - numOfCols + 1;
+				j = numOfCols - 1;
+			} else if (p < 2 * numOfCols + numOfRows - 2) {
+				i = numOfRows - 1;
+				j = numOfCols - 1 - (p - numOfCols - numOfRows + 2);
+			} else {
+				i = numOfRows - 1 - (p - 2 * numOfCols - numOfRows + 3);
+				j = 0;
+			}
+			cells[k] = MazeHelper.idxToID(i, j, numOfCols);
+		}
+		return cells;
+	}
+
+	private static char[] toChars(int[] distance) {
+		char[] chars = new char[distance.length];
+		for (int ID = 0; ID < distance.length; ID++) {
+			chars[ID] = distance[ID] < 0 ? UNREACHABLE_CHAR : (char) distance[ID];
+		}
+		return chars;
+	}
+
+	/**
+	 * The {@code Scratch} holds the search arrays of one thread. Entries are valid only when their mark equals the
+	 * current stamp, so nothing is cleared between queries.
+	 */
+	private static final class Scratch {
+		private final int[] seen;
+		private final int[] closed;
+		private final int[] g;
+		private final int[] parent;
+		private final LongMinHeap heap = new LongMinHeap();
+		private int stamp;
+
+		private Scratch(int numOfCells) {
+			this.seen = new int[numOfCells];
+			this.closed = new int[numOfCells];
+			this.g = new int[numOfCells];
+			this.parent = new int[numOfCells];
+		}
+
+		private int nextStamp() {
+			return ++stamp;
+		}
+	}
+}
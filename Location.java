@@ -39,8 +39,9 @@ public class Location {
 
     @Override
     public int hashCode() {
-        int result = 17;
-        return this.i * result + this.j;
+        // `i * 17 + j` collides for every pair of cells 17 columns apart, so spread i over the whole int range.
+        int h = this.i * 0x9E3779B9 + this.j;
+        return h ^ (h >>> 16);
     }
 
     @Override
@@ -0,0 +1,54 @@
+import java.util.Arrays;
+
+/**
+ * The {@code LongMinHeap} class is a binary min-heap of primitive longs, used as the open list of the A* searches. A
+ * search packs its priority in the high bits and the node in the low bits of each key, so no object is allocated per
+ * push. Not thread-safe: each search thread keeps its own heap.
+ */
+final class LongMinHeap {
+	private long[] heap = new long[64];
+	private int size;
+
+	void clear() {
+		size = 0;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	void push(long key) {
+		if (size == heap.length) {
+			heap = Arrays.copyOf(heap, size * 2);
+		}
+		int k = size++;
+		while (k > 0 && heap[(k - 1) / 2] > key) {
+			heap[k] = heap[(k - 1) / 2];
+			k = (k - 1) / 2;
+		}
+		heap[k] = key;
+	}
+
+	/**
+	 * Remove the smallest key.
+	 * @return the smallest key. The heap must not be empty.
+	 */
+	long pop() {
+		long top = heap[0];
+		long last = heap[--size];
+		int k = 0;
+		while (2 * k + 1 < size) {
+			int child = 2 * k + 1;
+			if (child + 1 < size && heap[child + 1] < heap[child]) {
+				child++;
+			}
+			if (heap[child] >= last) {
+				break;
+			}
+			heap[k] = heap[child];
+			k = child;
+		}
+		heap[k] = last;
+		return top;
+	}
+}
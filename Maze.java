@@ -43,6 +43,43 @@ public interface Maze {
      */
     void movePlayer(Direction playerDirectionInput);
 
+    /**
+     * Try to move the player to the specified `playerDirectionInput` and refresh the maze status. Unlike
+     * {@code movePlayer}, a blocked move does not throw and nothing is allocated, unless per-move JFR events are
+     * switched on with {@code -Dmaze.jfr.perMove=true}.
+     * @param playerDirectionInput a {@code Direction} which player tries to move to.
+     * @return one of the {@code MoveStatus} codes.
+     */
+    int tryMove(Direction playerDirectionInput);
+
+    /**
+     * Apply a whole route of moves, with the same gold coin and thief accounting as {@code tryMove}. Stop at the first
+     * step which is blocked by a wall or which comes after the player reaches the goal. The whole route is timed and
+     * recorded as one {@code MazeEvents.MoveSequence}, not one event per step.
+     * @param route the {@code Direction} of each step.
+     * @return the number of applied steps. If it is less than {@code route.length}, it is the index of the step where
+     * the route stopped.
+     */
+    int moveSequence(Direction[] route);
+
+    /**
+     * Same as {@code moveSequence(Direction[])}, but each step is encoded as the ordinal of its {@code Direction}.
+     * @param route the ordinal of the {@code Direction} of each step.
+     * @return the number of applied steps. If it is less than {@code route.length}, it is the index of the step where
+     * the route stopped.
+     */
+    int moveSequence(byte[] route);
+
+    /**
+     * Apply the steps {@code route[from, to)} the same way as {@code moveSequence(byte[])}. Used to fast-forward a
+     * game from a buffer without copying the route.
+     * @param route the ordinal of the {@code Direction} of each step.
+     * @param from the index of the first step to apply.
+     * @param to the index after the last step to apply.
+     * @return the index of the step where the route stopped, or {@code to} if every step is applied.
+     */
+    int moveSequence(byte[] route, int from, int to);
+
     /**
      * Get the walls' Location of the maze. Each wall is a line.
      * @return a 2D array, is a list of walls. Each wall represents as a list of 4 Integer [x1, y1, x2, y2]. These 4
@@ -79,4 +116,52 @@ public interface Maze {
 
     List<Location> getSolveLocation();
 
+    /**
+     * Print a rectangular region of the maze in the same format as {@code toString}, without the legend.
+     * @param fromI index i of the top-left cell of the region.
+     * @param fromJ index j of the top-left cell of the region.
+     * @param toI index i of the bottom-right cell of the region, inclusive.
+     * @param toJ index j of the bottom-right cell of the region, inclusive.
+     * @return a string describing the walls and items of the region.
+     * @throws IllegalArgumentException if the region is empty or not inside the maze grid.
+     */
+    String printRegion(int fromI, int fromJ, int toI, int toJ);
+
+    /**
+     * Get the number of rows in the maze. Used to decode the cell ID returned by the ID accessors.
+     * @return number of rows.
+     */
+    int getNumOfRows();
+
+    /**
+     * Get the number of columns in the maze. A cell ID is {@code i * numOfCols + j}.
+     * @return number of columns.
+     */
+    int getNumOfCols();
+
+    /**
+     * Same as {@code getSolveLocation}, but each cell is packed as its ID {@code i * numOfCols + j}.
+     * @return the IDs of the cells of the solved path, in the same order as {@code getSolveLocation}.
+     */
+    int[] getSolveCellIDs();
+
+    /**
+     * Same as {@code getGoldCoinLocation}, but each cell is packed as its ID {@code i * numOfCols + j}.
+     * @return the IDs of the cells which contain a gold coin.
+     */
+    int[] getGoldCoinCellIDs();
+
+    /**
+     * Same as {@code getThiefLocation}, but each cell is packed as its ID {@code i * numOfCols + j}.
+     * @return the IDs of the cells which contain a thief.
+     */
+    int[] getThiefCellIDs();
+
+    /**
+     * Same as {@code getWallsLocation}, but each wall endpoint is packed as its corner ID
+     * {@code i * (numOfCols + 1) + j}.
+     * @return an array of length 2 * number of walls. Elements 2k and 2k + 1 are the endpoints of the k-th wall.
+     */
+    int[] getWallEndpointIDs();
+
 }
@@ -0,0 +1,263 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The {@code MazeAnalytics} class measures the quality of a maze layout: dead ends, junctions, the longest straight
+ * corridor, the length and tortuosity of the shortest solution, and the distribution of distances from the starting
+ * point. Everything is computed by one BFS from the starting point and one pass over the wall masks. The pass is split
+ * into blocks of rows, which large mazes scan in parallel and then merge in row order.
+ */
+public final class MazeAnalytics {
+	private static final int ROWS_PER_BLOCK = 64;
+	private static final int PARALLEL_THRESHOLD = 1 << 16; // number of cells from which the pass runs in parallel.
+
+	private final int numOfDeadEnds;
+	private final int numOfJunctions;
+	private final int longestCorridor;
+	private final int solutionLength;
+	private final double tortuosity;
+	private final int[] distanceCounts;
+	private final int numOfUnreachableCells;
+
+	private MazeAnalytics(int numOfDeadEnds, int numOfJunctions, int longestCorridor, int solutionLength,
+	                      double tortuosity, int[] distanceCounts, int numOfUnreachableCells) {
+		this.numOfDeadEnds = numOfDeadEnds;
+		this.numOfJunctions = numOfJunctions;
+		this.longestCorridor = longestCorridor;
+		this.solutionLength = solutionLength;
+		this.tortuosity = tortuosity;
+		this.distanceCounts = distanceCounts;
+		this.numOfUnreachableCells = numOfUnreachableCells;
+	}
+
+	/**
+	 * Analyze a layout, in parallel if it has many cells.
+	 * @param layout the layout to analyze.
+	 * @return the analytics of the layout.
+	 */
+	public static MazeAnalytics analyze(MazeLayout layout) {
+		return analyze(layout, layout.getNumOfCells() >= PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * Analyze a layout.
+	 * @param layout the layout to analyze.
+	 * @param parallel true to run the BFS level by level and scan the blocks of rows in parallel, otherwise false.
+	 * @return the analytics of the layout.
+	 */
+	public static MazeAnalytics analyze(MazeLayout layout, boolean parallel) {
+		int numOfRows = layout.getNumOfRows();
+		int numOfCols = layout.getNumOfCols();
+		int[] distance = parallel ? new ParallelBfs(layout).distancesFrom(layout.getStartCellID())
+				: layout.distancesFrom(layout.getStartCellID());
+
+		int numOfBlocks = (numOfRows + ROWS_PER_BLOCK - 1) / ROWS_PER_BLOCK;
+		IntStream blocks = IntStream.range(0, numOfBlocks);
+		Block[] scanned = (parallel ? blocks.parallel() : blocks)
+				.mapToObj(b -> new Block(layout, distance, b * ROWS_PER_BLOCK,
+						Math.min(numOfRows, (b + 1) * ROWS_PER_BLOCK)))
+				.toArray(Block[]::new);
+
+		// Merge in row order. A vertical corridor open at the bottom of a block continues into the next one.
+		int numOfDeadEnds = 0;
+		int numOfJunctions = 0;
+		int longestCorridor = 0;
+		int numOfUnreachableCells = 0;
+		boolean isWrapping = false;
+		int[] distanceCounts = new int[0];
+		int[] carry = new int[numOfCols];
+		for (Block block : scanned) {
+			numOfDeadEnds += block.numOfDeadEnds;
+			numOfJunctions += block.numOfJunctions;
+			longestCorridor = Math.max(longestCorridor, block.longestCorridor);
+			numOfUnreachableCells += block.numOfUnreachableCells;
+			isWrapping |= block.isWrapping;
+			if (block.distanceCounts.length > distanceCounts.length) {
+				distanceCounts = Arrays.copyOf(distanceCounts, block.distanceCounts.length);
+			}
+			for (int k = 0; k < block.distanceCounts.length; k++) {
+				distanceCounts[k] += block.distanceCounts[k];
+			}
+			for (int j = 0; j < numOfCols; j++) {
+				int run = carry[j] + block.topRun[j];
+				if (block.isColumnOpen[j]) {
+					carry[j] = run;
+				} else {
+					longestCorridor = Math.max(longestCorridor, run);
+					carry[j] = block.bottomRun[j];
+				}
+			}
+		}
+
+		int startID = layout.getStartCellID();
+		int goalID = layout.getGoalCellID();
+		int solutionLength = distance[goalID];
+		int di = Math.abs(MazeHelper.IDToI(startID, numOfCols) - MazeHelper.IDToI(goalID, numOfCols));
+		int dj = Math.abs(MazeHelper.IDToJ(startID, numOfCols) - MazeHelper.IDToJ(goalID, numOfCols));
+		if (isWrapping) {
+			di = Math.min(di, numOfRows - di);
+			dj = Math.min(dj, numOfCols - dj);
+		}
+		double tortuosity = di + dj == 0 ? 1.0 : (double) solutionLength / (di + dj);
+		return new MazeAnalytics(numOfDeadEnds, numOfJunctions, longestCorridor, solutionLength, tortuosity,
+				distanceCounts, numOfUnreachableCells);
+	}
+
+	/**
+	 * Get the number of cells with exactly one open side.
+	 * @return the number of dead ends.
+	 */
+	public int getNumOfDeadEnds() {
+		return this.numOfDeadEnds;
+	}
+
+	/**
+	 * Get the number of cells with three or four open sides.
+	 * @return the number of junctions.
+	 */
+	public int getNumOfJunctions() {
+		return this.numOfJunctions;
+	}
+
+	/**
+	 * Get the length, in cells, of the longest straight horizontal or vertical run of cells with no wall in between.
+	 * A run ends at the border even if a wrap maze continues on the other side.
+	 * @return the length of the longest corridor.
+	 */
+	public int getLongestCorridor() {
+		return this.longestCorridor;
+	}
+
+	/**
+	 * Get the number of steps of the shortest path from the starting point to the goal location.
+	 * @return the length of the shortest solution.
+	 */
+	public int getSolutionLength() {
+		return this.solutionLength;
+	}
+
+	/**
+	 * Get the ratio of the shortest solution to the Manhattan distance between the starting point and the goal
+	 * location. The distance wraps around if any border wall is torn down.
+	 * @return the tortuosity, 1.0 if the starting point is the goal location.
+	 */
+	public double getTortuosity() {
+		return this.tortuosity;
+	}
+
+	/**
+	 * Get the number of cells at each distance from the starting point.
+	 * @return a copy of the counts, indexed by distance in steps.
+	 */
+	public int[] getDistanceCounts() {
+		return this.distanceCounts.clone();
+	}
+
+	/**
+	 * Get the number of cells which cannot be reached from the starting point.
+	 * @return the number of unreachable cells.
+	 */
+	public int getNumOfUnreachableCells() {
+		return this.numOfUnreachableCells;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder message = new StringBuilder();
+		message.append(String.format("dead ends %d, junctions %d, longest corridor %d%n", numOfDeadEnds,
+				numOfJunctions, longestCorridor));
+		message.append(String.format("solution length %d, tortuosity %.2f, unreachable cells %d%n", solutionLength,
+				tortuosity, numOfUnreachableCells));
+		Histogram distances = new Histogram(20, distanceCounts.length / 20 + 1);
+		for (int d = 0; d < distanceCounts.length; d++) {
+			for (int k = 0; k < distanceCounts[d]; k++) {
+				distances.add(d);
+			}
+		}
+		message.append("distance from start: ").append(distances);
+		return String.valueOf(message);
+	}
+
+	/**
+	 * The {@code Block} holds the counts of one block of rows. The vertical runs touching the top and the bottom of
+	 * the block are kept per column, so they can be joined with the neighbour blocks.
+	 */
+	private static final class Block {
+		private int numOfDeadEnds;
+		private int numOfJunctions;
+		private int longestCorridor;
+		private int numOfUnreachableCells;
+		private boolean isWrapping;
+		private int[] distanceCounts = new int[64];
+		private final int[] topRun;
+		private final int[] bottomRun;
+		private final boolean[] isColumnOpen; // true if no wall cuts the column inside the block.
+
+		private Block(MazeLayout layout, int[] distance, int fromRow, int toRow) {
+			int numOfRows = layout.getNumOfRows();
+			int numOfCols = layout.getNumOfCols();
+			this.topRun = new int[numOfCols];
+			this.bottomRun = new int[numOfCols];
+			this.isColumnOpen = new boolean[numOfCols];
+			Arrays.fill(isColumnOpen, true);
+			int maxDistance = -1;
+			for (int i = fromRow; i < toRow; i++) {
+				int rowRun = 0;
+				for (int j = 0; j < numOfCols; j++) {
+					int ID = MazeHelper.idxToID(i, j, numOfCols);
+					int mask = layout.getWallMask(ID);
+					int numOfOpenSides = 4 - Integer.bitCount(mask);
+					if (numOfOpenSides == 1) {
+						numOfDeadEnds++;
+					} else if (numOfOpenSides >= 3) {
+						numOfJunctions++;
+					}
+					if ((i == 0 && isOpen(mask, Direction.NORTH))
+							|| (i == numOfRows - 1 && isOpen(mask, Direction.SOUTH))
+							|| (j == 0 && isOpen(mask, Direction.WEST))
+							|| (j == numOfCols - 1 && isOpen(mask, Direction.EAST))) {
+						isWrapping = true;
+					}
+
+					rowRun++;
+					if (!isOpen(mask, Direction.EAST) || j == numOfCols - 1) {
+						longestCorridor = Math.max(longestCorridor, rowRun);
+						rowRun = 0;
+					}
+
+					bottomRun[j]++;
+					if (!isOpen(mask, Direction.SOUTH) || i == numOfRows - 1) {
+						if (isColumnOpen[j]) {
+							topRun[j] = bottomRun[j];
+							isColumnOpen[j] = false;
+						} else {
+							longestCorridor = Math.max(longestCorridor, bottomRun[j]);
+						}
+						bottomRun[j] = 0;
+					}
+
+					int d = distance[ID];
+					if (d < 0) {
+						numOfUnreachableCells++;
+					} else {
+						if (d >= distanceCounts.length) {
+							distanceCounts = Arrays.copyOf(distanceCounts, Math.max(d + 1, distanceCounts.length * 2));
+						}
+						distanceCounts[d]++;
+						maxDistance = Math.max(maxDistance, d);
+					}
+				}
+			}
+			for (int j = 0; j < numOfCols; j++) {
+				if (isColumnOpen[j]) {
+					topRun[j] = bottomRun[j];
+				}
+			}
+			distanceCounts = Arrays.copyOf(distanceCounts, maxDistance + 1);
+		}
+
+		private static boolean isOpen(int mask, Direction d) {
+			return (mask & (1 << d.ordinal())) == 0;
+		}
+	}
+}
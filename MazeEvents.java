@@ -0,0 +1,96 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * The {@code MazeEvents} class groups the custom Java Flight Recorder events of the `Maze` project. They cost nothing
+ * unless a recording is running, e.g. {@code java -XX:StartFlightRecording=filename=maze.jfr ...}. Moves are recorded
+ * once per {@code moveSequence} batch; the event of every single {@code tryMove} is only emitted when the system
+ * property {@code -Dmaze.jfr.perMove=true} is set, so a move allocates nothing by default.
+ */
+public final class MazeEvents {
+	// A static final switch, so when it is off the JIT removes the per-move event and timer from tryMove.
+	public static final boolean PER_MOVE = Boolean.getBoolean("maze.jfr.perMove");
+
+	private MazeEvents() {
+	}
+
+	@Name("maze.GenerationPhase")
+	@Label("Maze Generation Phase")
+	@Category("Maze")
+	@Description("One phase of the GeneralMaze construction")
+	public static final class GenerationPhase extends Event {
+		@Label("Phase")
+		String phase;
+
+		@Label("Rows")
+		int numOfRows;
+
+		@Label("Columns")
+		int numOfCols;
+	}
+
+	@Name("maze.Solve")
+	@Label("Maze Solve")
+	@Category("Maze")
+	public static final class Solve extends Event {
+		@Label("Solver")
+		String solver;
+
+		@Label("Nodes Expanded")
+		long nodesExpanded;
+
+		@Label("Path Length")
+		int pathLength;
+	}
+
+	@Name("maze.Move")
+	@Label("Player Move")
+	@Category("Maze")
+	@Threshold("1 ms")
+	@Description("One tryMove call, only with -Dmaze.jfr.perMove=true")
+	public static final class Move extends Event {
+		@Label("Status")
+		int status;
+	}
+
+	@Name("maze.MoveSequence")
+	@Label("Player Move Sequence")
+	@Category("Maze")
+	@Description("One moveSequence call, such as a MOVE command or a chunk of a replay")
+	public static final class MoveSequence extends Event {
+		@Label("Steps")
+		int steps;
+
+		@Label("Applied")
+		int applied;
+
+		/**
+		 * End the batch: record its time in {@code MazeMetrics} and commit this event.
+		 * @param start the value returned by {@code MazeMetrics.start} when the batch started.
+		 * @param steps number of steps of the route.
+		 * @param applied number of steps applied before the route stopped.
+		 */
+		void finish(long start, int steps, int applied) {
+			MazeMetrics.MOVE_SEQUENCE.stop(start);
+			end();
+			if (shouldCommit()) {
+				this.steps = steps;
+				this.applied = applied;
+				commit();
+			}
+		}
+	}
+
+	@Name("maze.Frame")
+	@Label("Swing Frame")
+	@Category("Maze")
+	@Description("One SwingPanel.paintComponent call")
+	public static final class Frame extends Event {
+		@Label("Walls")
+		int numOfWalls;
+	}
+}
@@ -1,7 +1,7 @@
 /**
  * The {@code MazeHelper} class contains helper methods used in the `Maze` project. Including the conversion between
- * the index(i, j), the {@code Location} and the ID, the calculation of x percent of total value in integer and the
- * calculation of maximum remaining walls.
+ * the index(i, j), the {@code Location} and the ID (of a cell or of a wall corner), the calculation of x percent of
+ * total value in integer and the calculation of maximum remaining walls.
  */
 
 public class MazeHelper {
@@ -17,10 +17,28 @@ public class MazeHelper {
 		return new Location(ID / numOfCols,ID % numOfCols);
 	}
 
+	static int IDToI(int ID, int numOfCols) {
+		return ID / numOfCols;
+	}
+
+	static int IDToJ(int ID, int numOfCols) {
+		return ID % numOfCols;
+	}
+
+	static int cornerIdxToID(int i, int j, int numOfCols) {
+		// Wall endpoints are the corners of the cells, so there is one more corner than cells on each row.
+		return i * (numOfCols + 1) + j;
+	}
+
 	static int getXPercentageInInt(int totalVal, double percentage) {
 		return (int) Math.ceil(totalVal * percentage);
 	}
 
+	static int goldAfterThiefEncounter(int gold) {
+		// The player loses 10 percent of his/her gold coins, rounded up, and never goes below 0.
+		return Math.max(gold - getXPercentageInInt(gold, Parameters.THIEF_PERCENT), 0);
+	}
+
 	static int calculateMaxRemainingWalls(int numOfRows, int numOfCols) {
 		// numOfCols: C
 		// numOfRemainingWalls: RW
@@ -0,0 +1,326 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The {@code MazeLayout} class represents the part of a maze which never changes during a game: the walls, the
+ * thieves, the initial gold coins, the solved path, the starting point and the goal location. It is immutable and
+ * can be shared by any number of {@code MazeSession}, on any thread. The walls are kept as one byte per cell, the items
+ * as bitsets.
+ */
+public final class MazeLayout {
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final int numOfRows;
+	private final int numOfCols;
+	private final int startID;
+	private final int goalID;
+	private final byte[] wallMasks;
+	private final long[] thiefBits;
+	private final long[][] goldPages;
+	private final int[] solveCellIDs;
+	private final int remainedWalls;
+	private volatile List<List<Location>> wallsLocation; // Built on first use, only for the Location based API.
+	private volatile List<Location> thiefLocation;
+	private volatile List<Location> solveLocation;
+	private volatile HierarchicalPathfinder hierarchicalPathfinder; // Built on first query, guarded by this.
+
+	/**
+	 * Constructs a {@code MazeLayout} object from a maze as it is now. The maze is only read.
+	 *
+	 * @param maze the maze to take the layout from.
+	 */
+	public MazeLayout(GeneralMaze maze) {
+		this.numOfRows = maze.getNumOfRows();
+		this.numOfCols = maze.getNumOfCols();
+		this.startID = maze.getStartCellID();
+		this.goalID = maze.getGoalCellID();
+		this.wallMasks = maze.getWallMasks();
+		this.thiefBits = new long[(numOfRows * numOfCols + 63) >>> 6];
+		for (int ID : maze.getThiefCellIDs()) {
+			thiefBits[ID >>> 6] |= 1L << ID;
+		}
+		this.goldPages = CowBitSet.toPages(maze.getGoldCoinCellIDs(), numOfRows * numOfCols);
+		this.solveCellIDs = maze.getSolveCellIDs();
+		this.remainedWalls = maze.countRemainedWalls();
+	}
+
+	/**
+	 * Start a new game on this layout. The player stands on the starting point with 0 gold coins.
+	 * @return a new {@code MazeSession}.
+	 */
+	public MazeSession newSession() {
+		return new MazeSession(this);
+	}
+
+	/**
+	 * Find the ID of the adjacent cell at direction d. A non-wrap maze always keeps its border walls, so wrapping the
+	 * index around is only ever reached through a torn down border wall of a wrap maze.
+	 * @param ID the ID of a cell.
+	 * @param d the {@code Direction} to move to.
+	 * @return the ID of the adjacent cell, or -1 if a wall stands at direction d.
+	 */
+	public int nextCellID(int ID, Direction d) {
+		if (hasWall(ID, d)) {
+			return -1;
+		}
+		int i = MazeHelper.IDToI(ID, numOfCols);
+		int j = MazeHelper.IDToJ(ID, numOfCols);
+		return switch (d) {
+			case NORTH -> MazeHelper.idxToID(i == 0 ? numOfRows - 1 : i - 1, j, numOfCols);
+			case SOUTH -> MazeHelper.idxToID(i == numOfRows - 1 ? 0 : i + 1, j, numOfCols);
+			case EAST -> MazeHelper.idxToID(i, j == numOfCols - 1 ? 0 : j + 1, numOfCols);
+			case WEST -> MazeHelper.idxToID(i, j == 0 ? numOfCols - 1 : j - 1, numOfCols);
+		};
+	}
+
+	public boolean hasWall(int ID, Direction d) {
+		return (wallMasks[ID] & (1 << d.ordinal())) != 0;
+	}
+
+	/**
+	 * Get the walls of a cell as a mask, bit {@code d.ordinal()} set when a wall stands at {@code Direction} d.
+	 * @param ID the ID of a cell.
+	 * @return the wall mask of the cell.
+	 */
+	int getWallMask(int ID) {
+		return wallMasks[ID];
+	}
+
+	public boolean hasThief(int ID) {
+		return (thiefBits[ID >>> 6] & (1L << ID)) != 0;
+	}
+
+	public int getNumOfRows() {
+		return this.numOfRows;
+	}
+
+	public int getNumOfCols() {
+		return this.numOfCols;
+	}
+
+	public int getNumOfCells() {
+		return this.wallMasks.length;
+	}
+
+	public int getStartCellID() {
+		return this.startID;
+	}
+
+	public int getGoalCellID() {
+		return this.goalID;
+	}
+
+	public int countRemainedWalls() {
+		return this.remainedWalls;
+	}
+
+	/**
+	 * Get the IDs of the cells of the solved path, from the goal back to the starting point.
+	 * @return a copy of the solved path.
+	 */
+	public int[] getSolveCellIDs() {
+		return this.solveCellIDs.clone();
+	}
+
+	/**
+	 * Get the IDs of the cells which contain a gold coin before any pickup.
+	 * @return the IDs, in increasing order.
+	 */
+	public int[] getInitialGoldCoinCellIDs() {
+		return new CowBitSet(goldPages).toArray();
+	}
+
+	/**
+	 * Get the IDs of the cells which contain a thief.
+	 * @return the IDs, in increasing order.
+	 */
+	public int[] getThiefCellIDs() {
+		int[] IDs = new int[countBits(thiefBits)];
+		int k = 0;
+		for (int w = 0; w < thiefBits.length; w++) {
+			long word = thiefBits[w];
+			while (word != 0) {
+				IDs[k++] = w * 64 + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+			}
+		}
+		return IDs;
+	}
+
+	/**
+	 * Get the two corner IDs of every wall, see {@code Maze.getWallEndpointIDs}. Computed from the wall masks, so
+	 * nothing is cached in the layout.
+	 * @return a new array of the endpoints, two per wall.
+	 */
+	public int[] getWallEndpointIDs() {
+		int[] endpoints = new int[remainedWalls * 2];
+		int k = 0;
+		for (int i = 0; i < numOfRows; i++) {
+			for (int j = 0; j < numOfCols; j++) {
+				int ID = MazeHelper.idxToID(i, j, numOfCols);
+				if (hasWall(ID, Direction.NORTH)) {
+					endpoints[k++] = MazeHelper.cornerIdxToID(i, j, numOfCols);
+					endpoints[k++] = MazeHelper.cornerIdxToID(i, j + 1, numOfCols);
+				}
+				if (hasWall(ID, Direction.WEST)) {
+					endpoints[k++] = MazeHelper.cornerIdxToID(i, j, numOfCols);
+					endpoints[k++] = MazeHelper.cornerIdxToID(i + 1, j, numOfCols);
+				}
+				if (i == numOfRows - 1 && hasWall(ID, Direction.SOUTH)) {
+					endpoints[k++] = MazeHelper.cornerIdxToID(i + 1, j, numOfCols);
+					endpoints[k++] = MazeHelper.cornerIdxToID(i + 1, j + 1, numOfCols);
+				}
+				if (j == numOfCols - 1 && hasWall(ID, Direction.EAST)) {
+					endpoints[k++] = MazeHelper.cornerIdxToID(i, j + 1, numOfCols);
+					endpoints[k++] = MazeHelper.cornerIdxToID(i + 1, j + 1, numOfCols);
+				}
+			}
+		}
+		return endpoints;
+	}
+
+	/**
+	 * Get the walls' Location, see {@code Maze.getWallsLocation}. Built on first use and shared by every session.
+	 * @return an unmodifiable list of walls.
+	 */
+	public List<List<Location>> getWallsLocation() {
+		List<List<Location>> walls = wallsLocation;
+		if (walls == null) {
+			walls = new ArrayList<>();
+			for (int i = 0; i < numOfRows; i++) {
+				for (int j = 0; j < numOfCols; j++) {
+					int ID = MazeHelper.idxToID(i, j, numOfCols);
+					if (hasWall(ID, Direction.NORTH)) {
+						walls.add(List.of(new Location(i, j), new Location(i, j + 1)));
+					}
+					if (hasWall(ID, Direction.WEST)) {
+						walls.add(List.of(new Location(i, j), new Location(i + 1, j)));
+					}
+					if (i == numOfRows - 1 && hasWall(ID, Direction.SOUTH)) {
+						walls.add(List.of(new Location(i + 1, j), new Location(i + 1, j + 1)));
+					}
+					if (j == numOfCols - 1 && hasWall(ID, Direction.EAST)) {
+						walls.add(List.of(new Location(i, j + 1), new Location(i + 1, j + 1)));
+					}
+				}
+			}
+			walls = Collections.unmodifiableList(walls);
+			wallsLocation = walls;
+		}
+		return walls;
+	}
+
+	/**
+	 * Get the thieves' Location. Built on first use and shared by every session.
+	 * @return an unmodifiable list of {@code Location}.
+	 */
+	public List<Location> getThiefLocation() {
+		List<Location> thieves = thiefLocation;
+		if (thieves == null) {
+			thieves = toLocations(getThiefCellIDs());
+			thiefLocation = thieves;
+		}
+		return thieves;
+	}
+
+	/**
+	 * Get the Location of the solved path. Built on first use and shared by every session.
+	 * @return an unmodifiable list of {@code Location}, from the goal back to the starting point.
+	 */
+	public List<Location> getSolveLocation() {
+		List<Location> solve = solveLocation;
+		if (solve == null) {
+			solve = toLocations(solveCellIDs);
+			solveLocation = solve;
+		}
+		return solve;
+	}
+
+	/**
+	 * Get the hierarchical path index of this layout, building it on first use. Every caller shares the same index.
+	 * @return the {@code HierarchicalPathfinder} with the default cluster size.
+	 */
+	public HierarchicalPathfinder getHierarchicalPathfinder() {
+		HierarchicalPathfinder pathfinder = hierarchicalPathfinder;
+		if (pathfinder == null) {
+			synchronized (this) {
+				pathfinder = hierarchicalPathfinder;
+				if (pathfinder == null) {
+					pathfinder = new HierarchicalPathfinder(this, HierarchicalPathfinder.DEFAULT_CLUSTER_SIZE);
+					hierarchicalPathfinder = pathfinder;
+				}
+			}
+		}
+		return pathfinder;
+	}
+
+	/**
+	 * Compute the distance, in steps, from the given cell to every cell by BFS.
+	 * @param sourceID the ID of the cell to measure from.
+	 * @return an array indexed by cell ID. Unreachable cells are set to -1.
+	 */
+	public int[] distancesFrom(int sourceID) {
+		int[] distance = new int[getNumOfCells()];
+		Arrays.fill(distance, -1);
+		int[] queue = new int[getNumOfCells()];
+		int head = 0;
+		int tail = 0;
+		distance[sourceID] = 0;
+		queue[tail++] = sourceID;
+		while (head < tail) {
+			int ID = queue[head++];
+			for (Direction d : DIRECTIONS) {
+				int nextID = nextCellID(ID, d);
+				if (nextID >= 0 && distance[nextID] < 0) {
+					distance[nextID] = distance[ID] + 1;
+					queue[tail++] = nextID;
+				}
+			}
+		}
+		return distance;
+	}
+
+	/**
+	 * Get the initial gold coins as one flat bitset, 64 cells per long.
+	 * @return a newly allocated copy of the initial gold bits.
+	 */
+	public long[] getInitialGoldBits() {
+		long[] words = new long[(getNumOfCells() + 63) >>> 6];
+		for (int p = 0; p < goldPages.length; p++) {
+			int from = p * CowBitSet.WORDS_PER_PAGE;
+			System.arraycopy(goldPages[p], 0, words, from, Math.min(CowBitSet.WORDS_PER_PAGE, words.length - from));
+		}
+		return words;
+	}
+
+	/**
+	 * Get the initial gold pages, shared by the copy-on-write gold bitset of every session.
+	 * @return the pages. Must not be written.
+	 */
+	long[][] getGoldPages() {
+		return this.goldPages;
+	}
+
+	/**
+	 * Convert cell IDs to an unmodifiable list of {@code Location}.
+	 * @param IDs the IDs of cells.
+	 * @return a list of {@code Location} in the same order.
+	 */
+	List<Location> toLocations(int[] IDs) {
+		List<Location> locations = new ArrayList<>(IDs.length);
+		for (int ID : IDs) {
+			locations.add(MazeHelper.IDToLocation(ID, numOfCols));
+		}
+		return Collections.unmodifiableList(locations);
+	}
+
+	private static int countBits(long[] words) {
+		int count = 0;
+		for (long word : words) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+}
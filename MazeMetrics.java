@@ -0,0 +1,151 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code MazeMetrics} class is a lightweight registry of timers and counters for generation, solving, moves and
+ * rendering. It is switched on with the system property {@code -Dmaze.metrics=true}. The switch is a static final
+ * field, so when it is off the JIT removes the timing code and the overhead is nothing. The values can be read at any
+ * time, from any thread, with {@code snapshot} or {@code report}.
+ */
+public final class MazeMetrics {
+	public static final boolean ENABLED = Boolean.getBoolean("maze.metrics");
+
+	private static final List<Timer> TIMERS = Collections.synchronizedList(new ArrayList<>());
+	private static final List<Counter> COUNTERS = Collections.synchronizedList(new ArrayList<>());
+
+	public static final Timer GRID_INIT = new Timer("generation.gridInit");
+	public static final Timer KRUSKAL = new Timer("generation.kruskal");
+	public static final Timer EXTRA_WALL_REMOVAL = new Timer("generation.extraWallRemoval");
+	public static final Timer ITEM_DECORATION = new Timer("generation.itemDecoration");
+	public static final Timer SOLVE = new Timer("solve");
+	public static final Counter SOLVE_NODES_EXPANDED = new Counter("solve.nodesExpanded");
+	public static final Timer MOVE = new Timer("move"); // only with -Dmaze.jfr.perMove=true, see MazeEvents.
+	public static final Timer MOVE_SEQUENCE = new Timer("moveSequence");
+	public static final Timer FRAME = new Timer("render.frame");
+
+	private MazeMetrics() {
+	}
+
+	/**
+	 * Start timing.
+	 * @return the current time in nanoseconds, or 0 when metrics are disabled.
+	 */
+	public static long start() {
+		return ENABLED ? System.nanoTime() : 0L;
+	}
+
+	/**
+	 * Read every timer and counter.
+	 * @return an ordered map from metric name to value. Timers report their count, total and maximum nanoseconds.
+	 */
+	public static Map<String, Long> snapshot() {
+		Map<String, Long> values = new LinkedHashMap<>();
+		synchronized (TIMERS) {
+			for (Timer t : TIMERS) {
+				values.put(t.name + ".count", t.count.sum());
+				values.put(t.name + ".totalNanos", t.totalNanos.sum());
+				values.put(t.name + ".maxNanos", t.maxNanos.get());
+			}
+		}
+		synchronized (COUNTERS) {
+			for (Counter c : COUNTERS) {
+				values.put(c.name, c.value.sum());
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Describe every metric, one per line.
+	 * @return a human-readable report.
+	 */
+	public static String report() {
+		StringBuilder message = new StringBuilder();
+		message.append("Metrics are ").append(ENABLED ? "enabled" : "disabled (-Dmaze.metrics=true)").append(".\n");
+		synchronized (TIMERS) {
+			for (Timer t : TIMERS) {
+				long count = t.count.sum();
+				message.append(String.format("%s: count %d, mean %d ns, max %d ns%n", t.name, count,
+						count == 0 ? 0 : t.totalNanos.sum() / count, t.maxNanos.get()));
+			}
+		}
+		synchronized (COUNTERS) {
+			for (Counter c : COUNTERS) {
+				message.append(c.name).append(": ").append(c.value.sum()).append("\n");
+			}
+		}
+		return String.valueOf(message);
+	}
+
+	/**
+	 * Reset every metric to 0.
+	 */
+	public static void reset() {
+		synchronized (TIMERS) {
+			for (Timer t : TIMERS) {
+				t.count.reset();
+				t.totalNanos.reset();
+				t.maxNanos.set(0);
+			}
+		}
+		synchronized (COUNTERS) {
+			for (Counter c : COUNTERS) {
+				c.value.reset();
+			}
+		}
+	}
+
+	/**
+	 * The {@code Timer} class counts timed operations and sums their durations.
+	 */
+	public static final class Timer {
+		private final String name;
+		private final LongAdder count = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		private Timer(String name) {
+			this.name = name;
+			TIMERS.add(this);
+		}
+
+		/**
+		 * Stop timing one operation.
+		 * @param start the value returned by {@code MazeMetrics.start}.
+		 */
+		public void stop(long start) {
+			if (ENABLED) {
+				long elapsed = System.nanoTime() - start;
+				count.increment();
+				totalNanos.add(elapsed);
+				if (elapsed > maxNanos.get()) {
+					maxNanos.accumulateAndGet(elapsed, Math::max);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The {@code Counter} class sums a quantity, such as the nodes expanded by the solver.
+	 */
+	public static final class Counter {
+		private final String name;
+		private final LongAdder value = new LongAdder();
+
+		private Counter(String name) {
+			this.name = name;
+			COUNTERS.add(this);
+		}
+
+		public void add(long delta) {
+			if (ENABLED) {
+				value.add(delta);
+			}
+		}
+	}
+}
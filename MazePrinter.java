@@ -0,0 +1,131 @@
+/**
+ * The {@code MazePrinter} class prints a maze, or a rectangular region of it, in String. It only reads the maze
+ * through {@code MazePrinter.Grid}, so {@code GeneralMaze} and {@code MazeSession} share the same format.
+ * String format:
+ * +-----+-----+-----+
+ * |  p           $  |
+ * +     +-----+-----+
+ * |     |        $  |
+ * +     +-----+     +
+ * |  &          end |
+ * +-----+-----+-----+
+ */
+final class MazePrinter {
+	private static final String START_LOGO = "start";
+	private static final String GOAL_LOGO = " end ";
+	private static final String PLAYER_LOGO = "  p  ";
+	private static final String GOLD_LOGO = "  $  ";
+	private static final String THIEF_LOGO = "  &  ";
+
+	/**
+	 * Specifies the read-only queries the printer needs. Cells are addressed by ID {@code i * numOfCols + j}.
+	 */
+	interface Grid {
+		int getNumOfRows();
+
+		int getNumOfCols();
+
+		boolean hasWall(int ID, Direction d);
+
+		boolean hasGoldCoin(int ID);
+
+		boolean hasThief(int ID);
+
+		int getPlayerCellID();
+
+		int getStartCellID();
+
+		int getGoalCellID();
+	}
+
+	private MazePrinter() {
+	}
+
+	/**
+	 * Print the whole maze with the legend of the logos.
+	 * @param grid the maze to print.
+	 * @return a string including the basic information of the maze. The location of walls/start/goal/goldCoin/thief/
+	 * player.
+	 */
+	static String printMaze(Grid grid) {
+		StringBuilder message = new StringBuilder();
+
+		message.append(START_LOGO).append(" means the start location.\n");
+		message.append(GOAL_LOGO).append(" means the goal location.\n");
+		message.append(PLAYER_LOGO).append(" means the location of player.\n");
+		message.append(GOLD_LOGO).append(" means the location of gold coin.\n");
+		message.append(THIEF_LOGO).append(" means the location of thief.\n");
+		message.append(printRegion(grid, 0, 0, grid.getNumOfRows() - 1, grid.getNumOfCols() - 1));
+
+		return String.valueOf(message);
+	}
+
+	/**
+	 * Print a rectangular region of the maze, without the legend.
+	 * @param grid the maze to print.
+	 * @param fromI index i of the top-left cell of the region.
+	 * @param fromJ index j of the top-left cell of the region.
+	 * @param toI index i of the bottom-right cell of the region, inclusive.
+	 * @param toJ index j of the bottom-right cell of the region, inclusive.
+	 * @return a string describing the walls and items of the region.
+	 * @throws IllegalArgumentException if the region is empty or not inside the maze grid.
+	 */
+	static String printRegion(Grid grid, int fromI, int fromJ, int toI, int toJ) {
+		int numOfCols = grid.getNumOfCols();
+		if (fromI < 0 || fromJ < 0 || toI >= grid.getNumOfRows() || toJ >= numOfCols || fromI > toI || fromJ > toJ) {
+			throw new IllegalArgumentException("Region (" + fromI + ", " + fromJ + ") - (" + toI + ", " + toJ +
+					") is not inside the maze grid.");
+		}
+		int regionRows = toI - fromI + 1;
+		int regionCols = toJ - fromJ + 1;
+		String[][] mazeInfo = new String[regionRows * 2 + 1][regionCols * 2 + 1];
+		String horizonLine = "-----";
+		String verticalLine = "|";
+		String horizonNoLine = "     ";
+		String verticalNoLine = " ";
+		String noItem = "     ";
+		String corner = "+";
+
+		for(int r = 0; r < regionRows; r++) {
+			for(int k = 0; k < regionCols; k++) {
+				int ID = MazeHelper.idxToID(fromI + r, fromJ + k, numOfCols);
+				mazeInfo[r * 2][k * 2] = corner;
+				mazeInfo[r * 2][k * 2 + 1] = grid.hasWall(ID, Direction.NORTH) ? horizonLine : horizonNoLine;
+				mazeInfo[r * 2 + 1][k * 2] = grid.hasWall(ID, Direction.WEST) ? verticalLine : verticalNoLine;
+				if (r == regionRows - 1) {
+					mazeInfo[r * 2 + 2][k * 2] = corner;
+					mazeInfo[r * 2 + 2][k * 2 + 1] = grid.hasWall(ID, Direction.SOUTH) ? horizonLine : horizonNoLine;
+				}
+				if (k == regionCols - 1) {
+					mazeInfo[r * 2][k * 2 + 2] = corner;
+					mazeInfo[r * 2 + 1][k * 2 + 2] = grid.hasWall(ID, Direction.EAST) ? verticalLine : verticalNoLine;
+				}
+				if (ID == grid.getPlayerCellID()) {
+					mazeInfo[r * 2 + 1][k * 2 + 1] = PLAYER_LOGO;
+				} else if (ID == grid.getGoalCellID()) {
+					mazeInfo[r * 2 + 1][k * 2 + 1] = GOAL_LOGO;
+				} else if (ID == grid.getStartCellID()) {
+					mazeInfo[r * 2 + 1][k * 2 + 1] = START_LOGO;
+				} else if (grid.hasGoldCoin(ID)) {
+					mazeInfo[r * 2 + 1][k * 2 + 1] = GOLD_LOGO;
+				} else if (grid.hasThief(ID)) {
+					mazeInfo[r * 2 + 1][k * 2 + 1] = THIEF_LOGO;
+				} else {
+					mazeInfo[r * 2 + 1][k * 2 + 1] = noItem;
+				}
+			}
+		}
+		mazeInfo[regionRows * 2][regionCols * 2] = corner;
+
+		StringBuilder message = new StringBuilder();
+		for (String[] strings : mazeInfo) {
+			StringBuilder line = new StringBuilder();
+			for(String s: strings) {
+				line.append(s);
+			}
+			message.append(line).append("\n");
+		}
+
+		return String.valueOf(message);
+	}
+}
@@ -0,0 +1,170 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code MazeServer} class hosts many independent game sessions in one process. Clients connect through a local
+ * TCP port or a Unix-domain socket and speak the line-based protocol of {@code GameSession}. Each connection gets its
+ * own thread: a virtual thread when the runtime provides them, otherwise a pooled platform thread. A command line
+ * longer than {@code MAX_LINE_LENGTH} characters is skipped up to its line break and answered with ERR, so one client
+ * cannot grow a line without bound.
+ */
+public final class MazeServer implements Closeable {
+	static final int MAX_LINE_LENGTH = 1 << 16;
+
+	private final ServerSocketChannel serverChannel;
+	private final ExecutorService executor;
+	private final AtomicInteger activeSessions = new AtomicInteger();
+
+	private MazeServer(ServerSocketChannel serverChannel) {
+		this.serverChannel = serverChannel;
+		this.executor = newPerConnectionExecutor();
+	}
+
+	/**
+	 * Open a server on a TCP port of the loopback address.
+	 * @param port the port to listen on, 0 picks a free one.
+	 * @return the opened server. Call {@code serve} to accept connections.
+	 * @throws IOException if the port cannot be bound.
+	 */
+	public static MazeServer openTcp(int port) throws IOException {
+		ServerSocketChannel channel = ServerSocketChannel.open();
+		channel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+		return new MazeServer(channel);
+	}
+
+	/**
+	 * Open a server on a Unix-domain socket. A stale socket file at the same path is replaced.
+	 * @param path the path of the socket file.
+	 * @return the opened server. Call {@code serve} to accept connections.
+	 * @throws IOException if the socket cannot be bound.
+	 */
+	public static MazeServer openUnix(Path path) throws IOException {
+		Files.deleteIfExists(path);
+		ServerSocketChannel channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		channel.bind(UnixDomainSocketAddress.of(path));
+		return new MazeServer(channel);
+	}
+
+	/**
+	 * Accept connections until the server is closed. Each connection is served by its own session and thread.
+	 * @throws IOException if accepting fails for another reason than closing the server.
+	 */
+	public void serve() throws IOException {
+		while (serverChannel.isOpen()) {
+			SocketChannel client;
+			try {
+				client = serverChannel.accept();
+			} catch (ClosedChannelException e) {
+				return;
+			}
+			executor.execute(() -> handleConnection(client));
+		}
+	}
+
+	/**
+	 * Get the address clients should connect to.
+	 * @return the local address of the server.
+	 * @throws IOException if the server is closed.
+	 */
+	public String getLocalAddress() throws IOException {
+		return serverChannel.getLocalAddress().toString();
+	}
+
+	/**
+	 * Get the number of connections currently being served.
+	 * @return number of active sessions.
+	 */
+	public int getActiveSessions() {
+		return activeSessions.get();
+	}
+
+	@Override
+	public void close() throws IOException {
+		serverChannel.close();
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Read command lines from one client and answer each of them until QUIT or end of stream.
+	 * @param client the accepted connection.
+	 */
+	private void handleConnection(SocketChannel client) {
+		activeSessions.incrementAndGet();
+		GameSession session = new GameSession();
+		try (client;
+		     BufferedReader in = new BufferedReader(Channels.newReader(client, StandardCharsets.UTF_8));
+		     BufferedWriter out = new BufferedWriter(Channels.newWriter(client, StandardCharsets.UTF_8))) {
+			StringBuilder line = new StringBuilder();
+			while (!session.isClosed() && readLine(in, line)) {
+				if (line.length() > MAX_LINE_LENGTH) {
+					out.write("ERR line longer than " + MAX_LINE_LENGTH + " characters");
+				} else if (line.toString().isBlank()) {
+					continue;
+				} else {
+					out.write(session.handle(line.toString()));
+				}
+				out.write('\n');
+				out.flush();
+			}
+		} catch (IOException e) {
+			// The client went away. Its session is simply dropped.
+		} finally {
+			activeSessions.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Read the next line into the buffer, without its line break. Past {@code MAX_LINE_LENGTH} characters the rest of
+	 * the line is read and dropped, so the buffer holds at most one character more than the limit.
+	 * @param in the client input.
+	 * @param line the buffer, cleared then filled with the line.
+	 * @return false at end of stream with nothing read.
+	 * @throws IOException if the client cannot be read.
+	 */
+	private static boolean readLine(BufferedReader in, StringBuilder line) throws IOException {
+		line.setLength(0);
+		int c = in.read();
+		if (c < 0) {
+			return false;
+		}
+		while (c >= 0 && c != '\n') {
+			if (line.length() <= MAX_LINE_LENGTH) {
+				line.append((char) c);
+			}
+			c = in.read();
+		}
+		if (line.length() > 0 && line.length() <= MAX_LINE_LENGTH && line.charAt(line.length() - 1) == '\r') {
+			line.setLength(line.length() - 1);
+		}
+		return true;
+	}
+
+	/**
+	 * Create the executor giving one thread to each connection. Virtual threads are looked up reflectively, so the
+	 * server still builds and runs on runtimes without them.
+	 * @return an executor starting one thread per task.
+	 */
+	private static ExecutorService newPerConnectionExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+}
@@ -0,0 +1,266 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code MazeSession} class represents one game played on a shared {@code MazeLayout}. The session only owns the
+ * player's cell, the player's gold count and a copy-on-write view of the gold coins; everything else is read from the
+ * layout. A thousand sessions on one layout cost one layout plus a few KB per session. A session is used by one thread
+ * at a time, like {@code GeneralMaze}.
+ */
+public final class MazeSession implements Maze, MazePrinter.Grid {
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final MazeLayout layout;
+	private final CowBitSet goldBits;
+	private int playerID;
+	private int gold;
+
+	/**
+	 * Constructs a {@code MazeSession} object with the player on the starting point and 0 gold coins.
+	 *
+	 * @param layout the shared layout to play on.
+	 */
+	MazeSession(MazeLayout layout) {
+		this.layout = layout;
+		this.goldBits = new CowBitSet(layout.getGoldPages());
+		this.playerID = layout.getStartCellID();
+		this.gold = 0;
+	}
+
+	public MazeLayout getLayout() {
+		return this.layout;
+	}
+
+	@Override
+	public Location getGoalLocation() {
+		return MazeHelper.IDToLocation(layout.getGoalCellID(), layout.getNumOfCols());
+	}
+
+	@Override
+	public Location getPlayerLocation() {
+		return MazeHelper.IDToLocation(playerID, layout.getNumOfCols());
+	}
+
+	@Override
+	public int getPlayerGoldCount() {
+		return this.gold;
+	}
+
+	@Override
+	public String printPlayerStatus() {
+		return "Currently player is at " + getPlayerLocation() + " Collecting: " + gold + " gold coins.\n";
+	}
+
+	@Override
+	public String printNextPossibleMove() {
+		List<Direction> moves = new ArrayList<>();
+		if (!isGameOver()) {
+			for (Direction d : DIRECTIONS) {
+				if (!layout.hasWall(playerID, d)) {
+					moves.add(d);
+				}
+			}
+		}
+		return "Player's next possible move is: " + moves;
+	}
+
+	@Override
+	public void movePlayer(Direction playerDirectionInput) {
+		if (tryMove(playerDirectionInput) == MoveStatus.BLOCKED) {
+			throw new IllegalArgumentException("Player can not move to this direction " + playerDirectionInput +
+					". A wall stands at this direction.");
+		}
+	}
+
+	@Override
+	public int tryMove(Direction playerDirectionInput) {
+		if (!MazeEvents.PER_MOVE) {
+			return applyMove(playerDirectionInput);
+		}
+		MazeEvents.Move event = new MazeEvents.Move();
+		event.begin();
+		long start = MazeMetrics.start();
+		int status = applyMove(playerDirectionInput);
+		MazeMetrics.MOVE.stop(start);
+		event.end();
+		if (event.shouldCommit()) {
+			event.status = status;
+			event.commit();
+		}
+		return status;
+	}
+
+	/**
+	 * Move the player if no wall stands at the direction, with the gold coin and thief rules of {@code PlayerImpl}.
+	 * @param playerDirectionInput a {@code Direction} which player tries to move to.
+	 * @return one of the {@code MoveStatus} codes.
+	 */
+	private int applyMove(Direction playerDirectionInput) {
+		if (isGameOver()) {
+			return MoveStatus.GAME_OVER;
+		}
+		int nextID = layout.nextCellID(playerID, playerDirectionInput);
+		if (nextID < 0) {
+			return MoveStatus.BLOCKED;
+		}
+		playerID = nextID;
+		if (goldBits.clear(nextID)) {
+			gold++;
+		} else if (layout.hasThief(nextID)) {
+			gold = MazeHelper.goldAfterThiefEncounter(gold);
+		}
+		return MoveStatus.MOVED;
+	}
+
+	@Override
+	public int moveSequence(Direction[] route) {
+		MazeEvents.MoveSequence event = new MazeEvents.MoveSequence();
+		event.begin();
+		long start = MazeMetrics.start();
+		int applied = route.length;
+		for (int k = 0; k < route.length; k++) {
+			if (applyMove(route[k]) != MoveStatus.MOVED) {
+				applied = k;
+				break;
+			}
+		}
+		event.finish(start, route.length, applied);
+		return applied;
+	}
+
+	@Override
+	public int moveSequence(byte[] route) {
+		return moveSequence(route, 0, route.length);
+	}
+
+	@Override
+	public int moveSequence(byte[] route, int from, int to) {
+		MazeEvents.MoveSequence event = new MazeEvents.MoveSequence();
+		event.begin();
+		long start = MazeMetrics.start();
+		int stop = to;
+		for (int k = from; k < to; k++) {
+			if (applyMove(DIRECTIONS[route[k]]) != MoveStatus.MOVED) {
+				stop = k;
+				break;
+			}
+		}
+		event.finish(start, to - from, stop - from);
+		return stop;
+	}
+
+	@Override
+	public List<List<Location>> getWallsLocation() {
+		return layout.getWallsLocation();
+	}
+
+	@Override
+	public List<Location> getGoldCoinLocation() {
+		return layout.toLocations(goldBits.toArray());
+	}
+
+	@Override
+	public List<Location> getThiefLocation() {
+		return layout.getThiefLocation();
+	}
+
+	@Override
+	public Location getStartLocation() {
+		return MazeHelper.IDToLocation(layout.getStartCellID(), layout.getNumOfCols());
+	}
+
+	@Override
+	public boolean isGameOver() {
+		return playerID == layout.getGoalCellID();
+	}
+
+	@Override
+	public int countRemainedWalls() {
+		return layout.countRemainedWalls();
+	}
+
+	@Override
+	public List<Location> getSolveLocation() {
+		return layout.getSolveLocation();
+	}
+
+	@Override
+	public String printRegion(int fromI, int fromJ, int toI, int toJ) {
+		return MazePrinter.printRegion(this, fromI, fromJ, toI, toJ);
+	}
+
+	@Override
+	public int getNumOfRows() {
+		return layout.getNumOfRows();
+	}
+
+	@Override
+	public int getNumOfCols() {
+		return layout.getNumOfCols();
+	}
+
+	@Override
+	public int[] getSolveCellIDs() {
+		return layout.getSolveCellIDs();
+	}
+
+	@Override
+	public int[] getGoldCoinCellIDs() {
+		return goldBits.toArray();
+	}
+
+	@Override
+	public int[] getThiefCellIDs() {
+		return layout.getThiefCellIDs();
+	}
+
+	@Override
+	public int[] getWallEndpointIDs() {
+		return layout.getWallEndpointIDs();
+	}
+
+	@Override
+	public boolean hasWall(int ID, Direction d) {
+		return layout.hasWall(ID, d);
+	}
+
+	@Override
+	public boolean hasGoldCoin(int ID) {
+		return goldBits.get(ID);
+	}
+
+	@Override
+	public boolean hasThief(int ID) {
+		return layout.hasThief(ID);
+	}
+
+	@Override
+	public int getPlayerCellID() {
+		return this.playerID;
+	}
+
+	@Override
+	public int getStartCellID() {
+		return layout.getStartCellID();
+	}
+
+	@Override
+	public int getGoalCellID() {
+		return layout.getGoalCellID();
+	}
+
+	/**
+	 * Estimate the memory this session owns on top of the shared layout.
+	 * @return the approximate number of bytes.
+	 */
+	public long estimateOwnedBytes() {
+		int pages = (layout.getNumOfCells() + CowBitSet.BITS_PER_PAGE - 1) / CowBitSet.BITS_PER_PAGE;
+		// object headers and fields, the page table, and the private pages.
+		return 64 + 16 + 4L * pages + (long) goldBits.countCopiedPages() * (16 + 8 * CowBitSet.WORDS_PER_PAGE);
+	}
+
+	@Override
+	public String toString() {
+		return MazePrinter.printMaze(this);
+	}
+}
@@ -0,0 +1,231 @@
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * The {@code MazeSimulation} class runs many simulated agents over generated mazes in parallel, to measure how the
+ * gold coin and thief densities play out. Agents follow one of the {@code Strategy} and use the same gold coin and
+ * thief rules as {@code PlayerImpl}. Agents are spread over the worker threads of the common fork-join pool by a
+ * parallel stream; each worker keeps its own histograms and scratch gold bitset, so a step allocates nothing.
+ */
+public final class MazeSimulation {
+	private static final Direction[] DIRECTIONS = Direction.values();
+	// Directions in clockwise order, used by the wall follower to turn right or left.
+	private static final Direction[] CLOCKWISE = {Direction.NORTH, Direction.EAST, Direction.SOUTH, Direction.WEST};
+
+	/**
+	 * The {@code Strategy} represents how a simulated agent chooses its next move.
+	 */
+	public enum Strategy {
+		RANDOM_WALK, // Move to a random open direction.
+		WALL_FOLLOWER, // Keep the right hand on the wall.
+		SHORTEST_PATH_WITH_DETOURS // Follow the shortest path to the goal, sometimes taking a random open direction.
+	}
+
+	private final List<MazeLayout> layouts;
+	private final int[][] distanceToGoal;
+	private final long[][] initialGoldBits;
+	private final int maxSteps;
+	private final double detourProbability;
+	private final int maxGoldWords;
+
+	/**
+	 * Constructs a {@code MazeSimulation} object over the given layouts. Agent k plays on layout k % layouts.size().
+	 *
+	 * @param layouts the mazes to simulate on.
+	 * @param maxSteps the number of steps after which an agent gives up.
+	 * @param detourProbability the probability that a shortest-path agent takes a random open direction instead.
+	 */
+	public MazeSimulation(List<MazeLayout> layouts, int maxSteps, double detourProbability) {
+		if (layouts.isEmpty() || maxSteps <= 0) {
+			throw new IllegalArgumentException("At least one layout and a positive maxSteps are needed.");
+		}
+		this.layouts = List.copyOf(layouts);
+		this.maxSteps = maxSteps;
+		this.detourProbability = detourProbability;
+		this.distanceToGoal = new int[layouts.size()][];
+		this.initialGoldBits = new long[layouts.size()][];
+		int words = 0;
+		for (int k = 0; k < layouts.size(); k++) {
+			distanceToGoal[k] = layouts.get(k).distancesFrom(layouts.get(k).getGoalCellID());
+			initialGoldBits[k] = layouts.get(k).getInitialGoldBits();
+			words = Math.max(words, initialGoldBits[k].length);
+		}
+		this.maxGoldWords = words;
+	}
+
+	/**
+	 * Run the given number of agents in parallel and aggregate their results.
+	 * @param strategy how the agents move.
+	 * @param numOfAgents number of agents to simulate.
+	 * @param seed seed of the agents' random choices. The same seed gives the same result.
+	 * @return the aggregated results.
+	 */
+	public Result run(Strategy strategy, int numOfAgents, long seed) {
+		return IntStream.range(0, numOfAgents).parallel().collect(
+				() -> new Result(strategy, maxSteps, maxGoldWords),
+				(result, agent) -> simulateAgent(result, strategy, agent, seed),
+				Result::merge);
+	}
+
+	/**
+	 * Simulate one agent from the starting point until it reaches the goal or runs out of steps.
+	 * @param result the results of the current worker, also holding its scratch gold bitset.
+	 * @param strategy how the agent moves.
+	 * @param agent the index of the agent.
+	 * @param seed seed of the simulation.
+	 */
+	private void simulateAgent(Result result, Strategy strategy, int agent, long seed) {
+		int layoutIdx = agent % layouts.size();
+		MazeLayout layout = layouts.get(layoutIdx);
+		int[] distance = distanceToGoal[layoutIdx];
+		long[] gold = result.scratchGold;
+		System.arraycopy(initialGoldBits[layoutIdx], 0, gold, 0, initialGoldBits[layoutIdx].length);
+
+		// SplitMix64 state, kept in a local to avoid allocation. The start of each agent is hashed from its index, so
+		// two agents never walk shifted copies of the same stream.
+		long random = mix(seed ^ mix(agent));
+		int cellID = layout.getStartCellID();
+		int goalID = layout.getGoalCellID();
+		int heading = 0; // index in CLOCKWISE, used by the wall follower.
+		int collected = 0;
+		int steps = 0;
+		int thieves = 0;
+		while (steps < maxSteps && cellID != goalID) {
+			random += 0x9E3779B97F4A7C15L;
+			long r = mix(random);
+			Direction d;
+			if (strategy == Strategy.WALL_FOLLOWER) {
+				int turn = 1; // try right, straight, left and back.
+				while (layout.hasWall(cellID, CLOCKWISE[(heading + turn) & 3])) {
+					turn = (turn + 3) & 3;
+				}
+				heading = (heading + turn) & 3;
+				d = CLOCKWISE[heading];
+			} else if (strategy == Strategy.SHORTEST_PATH_WITH_DETOURS
+					&& (r >>> 11) * 0x1.0p-53 >= detourProbability) {
+				d = stepDownhill(layout, distance, cellID);
+			} else {
+				d = randomOpenDirection(layout, cellID, (int) (r >>> 32));
+			}
+			cellID = layout.nextCellID(cellID, d);
+			steps++;
+			long bit = 1L << cellID;
+			if ((gold[cellID >>> 6] & bit) != 0) {
+				gold[cellID >>> 6] &= ~bit;
+				collected++;
+			} else if (layout.hasThief(cellID)) {
+				thieves++;
+				collected = MazeHelper.goldAfterThiefEncounter(collected);
+			}
+		}
+		result.record(collected, steps, thieves, cellID == goalID);
+	}
+
+	/**
+	 * Choose uniformly one of the directions without a wall.
+	 * @param layout the maze.
+	 * @param cellID the current cell.
+	 * @param r a random non-negative or negative int.
+	 * @return an open {@code Direction}.
+	 */
+	private static Direction randomOpenDirection(MazeLayout layout, int cellID, int r) {
+		int numOfOpen = 0;
+		for (Direction d : DIRECTIONS) {
+			if (!layout.hasWall(cellID, d)) {
+				numOfOpen++;
+			}
+		}
+		int pick = Math.floorMod(r, numOfOpen);
+		for (Direction d : DIRECTIONS) {
+			if (!layout.hasWall(cellID, d) && pick-- == 0) {
+				return d;
+			}
+		}
+		throw new IllegalStateException("Cell " + cellID + " has no open direction.");
+	}
+
+	/**
+	 * Choose the open direction leading one step closer to the goal.
+	 * @param layout the maze.
+	 * @param distance the distance to the goal of every cell.
+	 * @param cellID the current cell.
+	 * @return an open {@code Direction} on a shortest path.
+	 */
+	private static Direction stepDownhill(MazeLayout layout, int[] distance, int cellID) {
+		for (Direction d : DIRECTIONS) {
+			int nextID = layout.nextCellID(cellID, d);
+			if (nextID >= 0 && distance[nextID] == distance[cellID] - 1) {
+				return d;
+			}
+		}
+		throw new IllegalStateException("Cell " + cellID + " has no path to the goal.");
+	}
+
+	/**
+	 * The SplitMix64 finalizer, turning a counter into a well mixed random long.
+	 * @param z the counter.
+	 * @return the mixed value.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * The {@code Result} class aggregates the simulated agents: histograms of collected gold, steps and thief
+	 * encounters, and how many agents reached the goal.
+	 */
+	public static final class Result {
+		private final Strategy strategy;
+		private final Histogram gold = new Histogram(100, 1);
+		private final Histogram steps;
+		private final Histogram thiefEncounters = new Histogram(100, 1);
+		private final long[] scratchGold;
+		private long reachedGoal;
+
+		private Result(Strategy strategy, int maxSteps, int goldWords) {
+			this.strategy = strategy;
+			this.steps = new Histogram(50, maxSteps / 50 + 1);
+			this.scratchGold = new long[goldWords];
+		}
+
+		private void record(int collected, int numOfSteps, int thieves, boolean isGoalReached) {
+			gold.add(collected);
+			steps.add(numOfSteps);
+			thiefEncounters.add(thieves);
+			if (isGoalReached) {
+				reachedGoal++;
+			}
+		}
+
+		private void merge(Result other) {
+			gold.merge(other.gold);
+			steps.merge(other.steps);
+			thiefEncounters.merge(other.thiefEncounters);
+			reachedGoal += other.reachedGoal;
+		}
+
+		public Histogram getGold() {
+			return this.gold;
+		}
+
+		public Histogram getSteps() {
+			return this.steps;
+		}
+
+		public Histogram getThiefEncounters() {
+			return this.thiefEncounters;
+		}
+
+		public long getReachedGoal() {
+			return this.reachedGoal;
+		}
+
+		@Override
+		public String toString() {
+			return strategy + ": " + reachedGoal + " of " + gold.getNumOfSamples() + " agents reached the goal.\n"
+					+ "Gold coins: " + gold + "Steps: " + steps + "Thief encounters: " + thiefEncounters;
+		}
+	}
+}
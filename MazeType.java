@@ -0,0 +1,67 @@
+/**
+ * The {@code MazeType} represents the 3 types of maze this project generates. Used to rebuild a maze from its
+ * arguments and seed, for example when replaying a recorded game.
+ */
+public enum MazeType {
+	PERFECT,
+	ROOM,
+	WRAP_ROOM;
+
+	/**
+	 * Find the maze type from the command line arguments of {@code Driver}.
+	 * @param isWrap "wrap" or "non_wrap".
+	 * @param type "perfect" or "room".
+	 * @return the matched {@code MazeType}.
+	 * @throws IllegalArgumentException if the combination is not supported.
+	 */
+	public static MazeType fromArgs(String isWrap, String type) {
+		if (type.equals("perfect") && isWrap.equals("non_wrap")) {
+			return PERFECT;
+		} else if (type.equals("room") && isWrap.equals("non_wrap")) {
+			return ROOM;
+		} else if (type.equals("room") && isWrap.equals("wrap")) {
+			return WRAP_ROOM;
+		}
+		throw new IllegalArgumentException("Unsupported maze type.");
+	}
+
+	/**
+	 * Generate a maze of this type.
+	 * @param numOfRows number of rows in the maze.
+	 * @param numOfCols number of columns in the maze.
+	 * @param numOfRemainingWalls number of remaining walls in the maze. Ignored by the perfect maze.
+	 * @param startLocation starting point in the maze.
+	 * @param goalLocation goal point in the maze.
+	 * @param seed seed of the random generator used by the generation.
+	 * @return a newly generated maze.
+	 */
+	public GeneralMaze create(int numOfRows, int numOfCols, int numOfRemainingWalls, Location startLocation,
+	                          Location goalLocation, long seed) {
+		return create(numOfRows, numOfCols, numOfRemainingWalls, startLocation, goalLocation, seed,
+				Parameters.GOLD_COIN_PERCENT, Parameters.THIEF_PERCENT);
+	}
+
+	/**
+	 * Generate a maze of this type with the given item densities.
+	 * @param numOfRows number of rows in the maze.
+	 * @param numOfCols number of columns in the maze.
+	 * @param numOfRemainingWalls number of remaining walls in the maze. Ignored by the perfect maze.
+	 * @param startLocation starting point in the maze.
+	 * @param goalLocation goal point in the maze.
+	 * @param seed seed of the random generator used by the generation.
+	 * @param goldCoinDensity share of the cells holding a gold coin, from 0 to 1.
+	 * @param thiefDensity share of the cells holding a thief, from 0 to 1.
+	 * @return a newly generated maze.
+	 */
+	public GeneralMaze create(int numOfRows, int numOfCols, int numOfRemainingWalls, Location startLocation,
+	                          Location goalLocation, long seed, double goldCoinDensity, double thiefDensity) {
+		return switch (this) {
+			case PERFECT -> new PerfectMaze(numOfRows, numOfCols, startLocation, goalLocation, seed, goldCoinDensity,
+					thiefDensity);
+			case ROOM -> new RoomMaze(numOfRows, numOfCols, numOfRemainingWalls, startLocation, goalLocation, seed,
+					goldCoinDensity, thiefDensity);
+			case WRAP_ROOM -> new WrapRoomMaze(numOfRows, numOfCols, numOfRemainingWalls, startLocation, goalLocation,
+					seed, goldCoinDensity, thiefDensity);
+		};
+	}
+}
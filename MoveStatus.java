@@ -0,0 +1,9 @@
+/**
+ * The {@code MoveStatus} class represents the status codes returned by {@code Maze.tryMove}. Plain int codes are used
+ * so that a blocked move costs neither an exception nor an allocation.
+ */
+public class MoveStatus {
+  public static final int MOVED = 0; // The player entered the adjacent cell.
+  public static final int BLOCKED = 1; // A wall stands at the requested direction. Nothing changes.
+  public static final int GAME_OVER = 2; // The player already stands on the goal. Nothing changes.
+}
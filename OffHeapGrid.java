@@ -0,0 +1,358 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The {@code OffHeapGrid} class holds the walls and items of a grid too large for {@code GeneralMaze}, whose cell IDs
+ * are ints: up to {@code Integer.MAX_VALUE} rows and columns, addressed by long cell IDs. Each cell is one byte outside
+ * the Java heap: bit {@code d.ordinal()} is set when a wall stands at {@code Direction} d, then one bit for a gold coin
+ * and one for a thief. The bytes live in direct buffers, or in buffers mapped from a file which can be reopened later.
+ * A buffer holds at most 2 GiB, so the cells are split into chunks of 1 GiB. The garbage collector only ever sees the
+ * few chunk objects, never the cells.
+ *
+ * The grid is not thread-safe. Threads may read it concurrently once it is built, or write disjoint rows.
+ */
+public final class OffHeapGrid implements AutoCloseable {
+	private static final int MAGIC = 0x4D415A47; // "MAZG"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 16;
+	private static final int CHUNK_BITS = 30; // each chunk is 1 GiB, below the 2 GiB limit of a buffer.
+	private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+	private static final int ALL_WALLS = 0xF;
+	private static final int GOLD_COIN_BIT = 1 << 4;
+	private static final int THIEF_BIT = 1 << 5;
+
+	private final int numOfRows;
+	private final int numOfCols;
+	private final long numOfCells;
+	private final ByteBuffer[] chunks;
+	private final FileChannel channel; // null when the grid is not backed by a file.
+
+	private OffHeapGrid(int numOfRows, int numOfCols, ByteBuffer[] chunks, FileChannel channel) {
+		this.numOfRows = numOfRows;
+		this.numOfCols = numOfCols;
+		this.numOfCells = (long) numOfRows * numOfCols;
+		this.chunks = chunks;
+		this.channel = channel;
+	}
+
+	/**
+	 * Allocate a grid in direct memory. Each cell is isolated by 4 surrounding walls and holds no item.
+	 * @param numOfRows number of rows in the grid. Must be positive.
+	 * @param numOfCols number of columns in the grid. Must be positive.
+	 * @return the new grid.
+	 * @throws IllegalArgumentException if a size is not positive.
+	 */
+	public static OffHeapGrid allocate(int numOfRows, int numOfCols) {
+		long numOfCells = checkSize(numOfRows, numOfCols);
+		ByteBuffer[] chunks = new ByteBuffer[numOfChunks(numOfCells)];
+		for (int k = 0; k < chunks.length; k++) {
+			chunks[k] = ByteBuffer.allocateDirect((int) chunkSize(numOfCells, k));
+		}
+		OffHeapGrid grid = new OffHeapGrid(numOfRows, numOfCols, chunks, null);
+		grid.fill(ALL_WALLS);
+		return grid;
+	}
+
+	/**
+	 * Create a grid mapped from a new file. Each cell is isolated by 4 surrounding walls and holds no item. The cells
+	 * are paged in and out by the operating system, so the grid may be larger than memory.
+	 * @param file the file to create. Overwritten if it exists.
+	 * @param numOfRows number of rows in the grid. Must be positive.
+	 * @param numOfCols number of columns in the grid. Must be positive.
+	 * @return the new grid. Close it to write the cells back to the file.
+	 * @throws IOException if the file cannot be created or mapped.
+	 * @throws IllegalArgumentException if a size is not positive.
+	 */
+	public static OffHeapGrid create(Path file, int numOfRows, int numOfCols) throws IOException {
+		long numOfCells = checkSize(numOfRows, numOfCols);
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC).putInt(VERSION).putInt(numOfRows).putInt(numOfCols).flip();
+			while (header.hasRemaining()) {
+				channel.write(header);
+			}
+			OffHeapGrid grid = new OffHeapGrid(numOfRows, numOfCols, map(channel, numOfCells), channel);
+			grid.fill(ALL_WALLS);
+			return grid;
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Map a grid from a file written by {@code create}.
+	 * @param file the file to open.
+	 * @return the grid. Close it to write the changes back to the file.
+	 * @throws IOException if the file cannot be read or mapped.
+	 * @throws IllegalArgumentException if the file is not a grid file, or is truncated.
+	 */
+	public static OffHeapGrid open(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (header.hasRemaining() && channel.read(header) >= 0) {
+				// Read until the header is full or the file ends.
+			}
+			header.flip();
+			if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+				throw new IllegalArgumentException("File " + file + " is not a grid file.\n");
+			}
+			int numOfRows = header.getInt();
+			int numOfCols = header.getInt();
+			long numOfCells = checkSize(numOfRows, numOfCols);
+			if (channel.size() < HEADER_SIZE + numOfCells) {
+				throw new IllegalArgumentException("File " + file + " is truncated.\n");
+			}
+			return new OffHeapGrid(numOfRows, numOfCols, map(channel, numOfCells), channel);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Turn the grid into a perfect maze by Eller's algorithm. The maze is carved one row at a time, keeping only the
+	 * sets of the current row, so the extra memory is O(numOfCols) however many rows the grid has. Every cell must
+	 * still be isolated by its 4 walls.
+	 * @param seed seed of the random generator. The same seed always carves the same maze.
+	 */
+	public void carvePerfectMaze(long seed) {
+		Random random = new Random(seed);
+		int[] set = new int[numOfCols];     // a union-find over the columns of the current row.
+		int[] nextSet = new int[numOfCols];
+		int[] lastCol = new int[numOfCols]; // lastCol[root] is the last column of the set, which goes down if no other.
+		boolean[] hasGoneDown = new boolean[numOfCols];
+		for (int j = 0; j < numOfCols; j++) {
+			set[j] = j;
+		}
+		for (int i = 0; i < numOfRows; i++) {
+			boolean isLastRow = i == numOfRows - 1;
+			// Join adjacent cells of different sets at random; the last row joins them all.
+			for (int j = 0; j + 1 < numOfCols; j++) {
+				int root = find(set, j);
+				int nextRoot = find(set, j + 1);
+				if (root != nextRoot && (isLastRow || random.nextBoolean())) {
+					set[nextRoot] = root;
+					tearDownWall(cellID(i, j), Direction.EAST);
+				}
+			}
+			if (isLastRow) {
+				break;
+			}
+
+			// Carry every set down at least once. The cells which do not go down start new sets on the next row.
+			Arrays.fill(hasGoneDown, false);
+			for (int j = 0; j < numOfCols; j++) {
+				set[j] = find(set, j);
+				lastCol[set[j]] = j;
+			}
+			for (int j = 0; j < numOfCols; j++) {
+				int root = set[j];
+				if (random.nextBoolean() || (lastCol[root] == j && !hasGoneDown[root])) {
+					hasGoneDown[root] = true;
+					tearDownWall(cellID(i, j), Direction.SOUTH);
+				}
+			}
+			// A set carried down keeps one member as its root on the next row.
+			Arrays.fill(lastCol, -1);
+			for (int j = 0; j < numOfCols; j++) {
+				nextSet[j] = j;
+				if (!hasWall(cellID(i, j), Direction.SOUTH)) {
+					int root = set[j];
+					if (lastCol[root] < 0) {
+						lastCol[root] = j;
+					}
+					nextSet[j] = lastCol[root];
+				}
+			}
+			int[] swap = set;
+			set = nextSet;
+			nextSet = swap;
+		}
+	}
+
+	/**
+	 * Get the ID of a cell.
+	 * @param i the index of the row.
+	 * @param j the index of the column.
+	 * @return the long ID of the cell.
+	 */
+	public long cellID(int i, int j) {
+		return (long) i * numOfCols + j;
+	}
+
+	public int getI(long ID) {
+		return (int) (ID / numOfCols);
+	}
+
+	public int getJ(long ID) {
+		return (int) (ID % numOfCols);
+	}
+
+	/**
+	 * Find the ID of the adjacent cell at direction d, wrapping around the border.
+	 * @param ID the ID of a cell.
+	 * @param d a {@code Direction}.
+	 * @return the ID of the adjacent cell, or -1 if a wall stands at direction d.
+	 */
+	public long nextCellID(long ID, Direction d) {
+		return hasWall(ID, d) ? -1 : adjacentCellID(ID, d);
+	}
+
+	public boolean hasWall(long ID, Direction d) {
+		return (get(ID) & (1 << d.ordinal())) != 0;
+	}
+
+	/**
+	 * Tear down the wall at direction d of a cell, and the same wall seen from the adjacent cell. A border wall is torn
+	 * down together with the border wall facing it on the other side, like {@code WrapRoomMaze}.
+	 * @param ID the ID of a cell.
+	 * @param d the {@code Direction} of the wall.
+	 */
+	public void tearDownWall(long ID, Direction d) {
+		long nextID = adjacentCellID(ID, d);
+		put(ID, (byte) (get(ID) & ~(1 << d.ordinal())));
+		put(nextID, (byte) (get(nextID) & ~(1 << (d.ordinal() ^ 1)))); // the opposite differs in the lowest bit.
+	}
+
+	/**
+	 * Build the wall at direction d of a cell, and the same wall seen from the adjacent cell.
+	 * @param ID the ID of a cell.
+	 * @param d the {@code Direction} of the wall.
+	 */
+	public void buildWall(long ID, Direction d) {
+		long nextID = adjacentCellID(ID, d);
+		put(ID, (byte) (get(ID) | (1 << d.ordinal())));
+		put(nextID, (byte) (get(nextID) | (1 << (d.ordinal() ^ 1))));
+	}
+
+	public boolean hasGoldCoin(long ID) {
+		return (get(ID) & GOLD_COIN_BIT) != 0;
+	}
+
+	public void setGoldCoin(long ID, boolean hasGoldCoin) {
+		put(ID, (byte) (hasGoldCoin ? get(ID) | GOLD_COIN_BIT : get(ID) & ~GOLD_COIN_BIT));
+	}
+
+	public boolean hasThief(long ID) {
+		return (get(ID) & THIEF_BIT) != 0;
+	}
+
+	public void setThief(long ID, boolean hasThief) {
+		put(ID, (byte) (hasThief ? get(ID) | THIEF_BIT : get(ID) & ~THIEF_BIT));
+	}
+
+	public int getNumOfRows() {
+		return this.numOfRows;
+	}
+
+	public int getNumOfCols() {
+		return this.numOfCols;
+	}
+
+	public long getNumOfCells() {
+		return this.numOfCells;
+	}
+
+	/**
+	 * Write the cells of a file backed grid back to its file and close it. A grid in direct memory is released when it
+	 * is no longer referenced.
+	 * @throws IOException if the file cannot be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (channel != null) {
+			for (ByteBuffer chunk : chunks) {
+				((MappedByteBuffer) chunk).force();
+			}
+			channel.close();
+		}
+	}
+
+	private long adjacentCellID(long ID, Direction d) {
+		int i = getI(ID);
+		int j = getJ(ID);
+		return switch (d) {
+			case NORTH -> cellID(i == 0 ? numOfRows - 1 : i - 1, j);
+			case SOUTH -> cellID(i == numOfRows - 1 ? 0 : i + 1, j);
+			case EAST -> cellID(i, j == numOfCols - 1 ? 0 : j + 1);
+			case WEST -> cellID(i, j == 0 ? numOfCols - 1 : j - 1);
+		};
+	}
+
+	private byte get(long ID) {
+		checkID(ID);
+		return chunks[(int) (ID >>> CHUNK_BITS)].get((int) (ID & CHUNK_MASK));
+	}
+
+	private void put(long ID, byte b) {
+		checkID(ID);
+		chunks[(int) (ID >>> CHUNK_BITS)].put((int) (ID & CHUNK_MASK), b);
+	}
+
+	private void checkID(long ID) {
+		if (ID < 0 || ID >= numOfCells) {
+			throw new IllegalArgumentException("Cell ID " + ID + " is not inside the grid.\n");
+		}
+	}
+
+	private void fill(int value) {
+		byte[] block = new byte[1 << 16];
+		Arrays.fill(block, (byte) value);
+		for (ByteBuffer chunk : chunks) {
+			ByteBuffer view = chunk.duplicate();
+			view.clear();
+			while (view.hasRemaining()) {
+				view.put(block, 0, Math.min(block.length, view.remaining()));
+			}
+		}
+	}
+
+	/**
+	 * Check the size of a grid.
+	 * @return the number of cells, which always fits in a long since both sizes are ints.
+	 * @throws IllegalArgumentException if a size is not positive.
+	 */
+	private static long checkSize(int numOfRows, int numOfCols) {
+		if (numOfRows <= 0 || numOfCols <= 0) {
+			throw new IllegalArgumentException("NumOfRows " + numOfRows + " and NumOfCols " + numOfCols +
+					" must be positive!\n");
+		}
+		return Math.multiplyExact((long) numOfRows, (long) numOfCols);
+	}
+
+	private static ByteBuffer[] map(FileChannel channel, long numOfCells) throws IOException {
+		ByteBuffer[] chunks = new ByteBuffer[numOfChunks(numOfCells)];
+		for (int k = 0; k < chunks.length; k++) {
+			// Mapping in READ_WRITE mode grows the file as needed.
+			chunks[k] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + ((long) k << CHUNK_BITS),
+					chunkSize(numOfCells, k));
+		}
+		return chunks;
+	}
+
+	private static int numOfChunks(long numOfCells) {
+		return Math.toIntExact((numOfCells + CHUNK_MASK) >>> CHUNK_BITS);
+	}
+
+	private static long chunkSize(long numOfCells, int k) {
+		return Math.min(CHUNK_MASK + 1, numOfCells - ((long) k << CHUNK_BITS));
+	}
+
+	private static int find(int[] parent, int j) {
+		while (parent[j] != j) {
+			parent[j] = parent[parent[j]];
+			j = parent[j];
+		}
+		return j;
+	}
+}
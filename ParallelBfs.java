@@ -0,0 +1,218 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The {@code ParallelBfs} class runs a level-synchronous BFS on a fork-join pool, for mazes too large for one thread.
+ * Each level splits its frontier into chunks which are expanded in parallel. A cell is claimed by setting its bit in an
+ * atomic visited bitset with a compare-and-set, so exactly one task records its distance and adds it to the next
+ * frontier. Every chunk collects the cells it claimed in a buffer of its own, and the buffers are concatenated between
+ * levels, so no lock is taken while a level is expanded. The distances never depend on the scheduling; when a cell has
+ * several parents at the previous level, the path found goes through whichever claimed it first. The neighbours are
+ * read from the {@code MazeLayout}, which follows the torn down border walls of a wrap maze.
+ */
+public final class ParallelBfs {
+	private static final Direction[] DIRECTIONS = Direction.values();
+	private static final int CHUNK_SIZE = 1 << 11; // number of frontier cells expanded by one task.
+
+	private final MazeLayout layout;
+	private final ForkJoinPool pool;
+
+	/**
+	 * Constructs a {@code ParallelBfs} object running on the common fork-join pool.
+	 *
+	 * @param layout the layout to search.
+	 */
+	public ParallelBfs(MazeLayout layout) {
+		this(layout, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Constructs a {@code ParallelBfs} object.
+	 *
+	 * @param layout the layout to search.
+	 * @param pool the pool the levels are expanded on. Its parallelism bounds the number of cores used.
+	 */
+	public ParallelBfs(MazeLayout layout, ForkJoinPool pool) {
+		this.layout = layout;
+		this.pool = pool;
+	}
+
+	/**
+	 * Compute the distance, in steps, from the given cell to every cell.
+	 * @param sourceID the ID of the cell to measure from.
+	 * @return an array indexed by cell ID, the same as {@code MazeLayout.distancesFrom}. Unreachable cells are set
+	 * to -1.
+	 */
+	public int[] distancesFrom(int sourceID) {
+		Search search = new Search(sourceID, false);
+		search.run(-1);
+		return search.distance;
+	}
+
+	/**
+	 * Find a shortest path between two cells. The search stops after the level which reaches the goal.
+	 * @param startID the ID of the starting cell.
+	 * @param goalID the ID of the goal cell.
+	 * @return the IDs of the cells of the path, from the goal back to the start like {@code getSolveCellIDs}, or an
+	 * empty array if the goal cannot be reached.
+	 */
+	public int[] findPath(int startID, int goalID) {
+		MazeEvents.Solve event = new MazeEvents.Solve();
+		event.begin();
+		long start = MazeMetrics.start();
+		Search search = new Search(startID, true);
+		long nodesExpanded = search.run(goalID);
+		int distance = search.distance[goalID];
+		int[] path = new int[distance + 1];
+		for (int k = 0, ID = goalID; k < path.length; k++, ID = search.parent[ID]) {
+			path[k] = ID;
+		}
+		MazeMetrics.SOLVE.stop(start);
+		MazeMetrics.SOLVE_NODES_EXPANDED.add(nodesExpanded);
+		event.end();
+		if (event.shouldCommit()) {
+			event.solver = "parallelBfs";
+			event.nodesExpanded = nodesExpanded;
+			event.pathLength = path.length;
+			event.commit();
+		}
+		return path;
+	}
+
+	/**
+	 * The {@code Search} holds the state of one BFS: the distances, the parents if a path is wanted, the visited bitset
+	 * and the frontier of the current level.
+	 */
+	private final class Search {
+		private final int[] distance;
+		private final int[] parent;
+		private final AtomicLongArray visited;
+		private int[] frontier;
+		private int frontierSize;
+		private int level;
+		private int[][] buffers; // buffers[c] holds the cells claimed by chunk c, counts[c] of them.
+		private int[] counts;
+
+		private Search(int sourceID, boolean withParents) {
+			int numOfCells = layout.getNumOfCells();
+			this.distance = new int[numOfCells];
+			Arrays.fill(distance, -1);
+			this.parent = withParents ? new int[numOfCells] : null;
+			this.visited = new AtomicLongArray((numOfCells + 63) >>> 6);
+			claim(sourceID);
+			distance[sourceID] = 0;
+			if (parent != null) {
+				parent[sourceID] = sourceID;
+			}
+			this.frontier = new int[] {sourceID};
+			this.frontierSize = 1;
+		}
+
+		/**
+		 * Expand the levels one after another until the frontier is empty or the goal is reached.
+		 * @param goalID the ID of the cell to stop at, or -1 to reach every cell.
+		 * @return the number of cells expanded.
+		 */
+		private long run(int goalID) {
+			long nodesExpanded = 0;
+			while (frontierSize > 0 && (goalID < 0 || distance[goalID] < 0)) {
+				nodesExpanded += frontierSize;
+				level++;
+				int numOfChunks = (frontierSize + CHUNK_SIZE - 1) / CHUNK_SIZE;
+				buffers = new int[numOfChunks][];
+				counts = new int[numOfChunks];
+				if (numOfChunks == 1) {
+					expand(0); // A small level is not worth a trip through the pool.
+				} else {
+					pool.invoke(new Expand(0, numOfChunks));
+				}
+
+				int size = 0;
+				for (int count : counts) {
+					size += count;
+				}
+				int[] next = new int[size];
+				for (int c = 0, k = 0; c < numOfChunks; k += counts[c], c++) {
+					System.arraycopy(buffers[c], 0, next, k, counts[c]);
+				}
+				frontier = next;
+				frontierSize = size;
+			}
+			return nodesExpanded;
+		}
+
+		/**
+		 * Expand one chunk of the frontier into its own buffer.
+		 * @param c the index of the chunk.
+		 */
+		private void expand(int c) {
+			int from = c * CHUNK_SIZE;
+			int to = Math.min(frontierSize, from + CHUNK_SIZE);
+			int[] buffer = new int[to - from];
+			int count = 0;
+			for (int k = from; k < to; k++) {
+				int ID = frontier[k];
+				for (Direction d : DIRECTIONS) {
+					int nextID = layout.nextCellID(ID, d);
+					if (nextID >= 0 && claim(nextID)) {
+						distance[nextID] = level;
+						if (parent != null) {
+							parent[nextID] = ID;
+						}
+						if (count == buffer.length) {
+							buffer = Arrays.copyOf(buffer, count * 2);
+						}
+						buffer[count++] = nextID;
+					}
+				}
+			}
+			buffers[c] = buffer;
+			counts[c] = count;
+		}
+
+		/**
+		 * Set the visited bit of a cell.
+		 * @param ID the ID of the cell.
+		 * @return true if this call set the bit, false if the cell was already claimed.
+		 */
+		private boolean claim(int ID) {
+			int w = ID >>> 6;
+			long bit = 1L << ID;
+			long word = visited.get(w);
+			while ((word & bit) == 0) {
+				if (visited.compareAndSet(w, word, word | bit)) {
+					return true;
+				}
+				word = visited.get(w);
+			}
+			return false;
+		}
+
+		/**
+		 * The {@code Expand} task expands a range of chunks, halving the range until a single chunk is left.
+		 */
+		private final class Expand extends RecursiveAction {
+			private static final long serialVersionUID = 1L;
+
+			private final int from;
+			private final int to;
+
+			private Expand(int from, int to) {
+				this.from = from;
+				this.to = to;
+			}
+
+			@Override
+			protected void compute() {
+				if (to - from == 1) {
+					expand(from);
+					return;
+				}
+				int middle = (from + to) >>> 1;
+				invokeAll(new Expand(from, middle), new Expand(middle, to));
+			}
+		}
+	}
+}
@@ -0,0 +1,87 @@
+import java.util.Random;
+
+/**
+ * The {@code PartialShuffle} class draws distinct random ints from [0, size) one at a time, as the first steps of a
+ * Fisher-Yates shuffle of 0, 1, ..., size - 1. The permutation is never allocated: only the positions a swap has
+ * moved are kept, in an open-addressing map of primitive ints, so k draws cost O(k) time and memory whatever the size.
+ * Not thread-safe.
+ */
+final class PartialShuffle {
+	private final int size;
+	private final Random random;
+	private int numOfDrawn;
+	private int[] keys = new int[16]; // position + 1 of each moved position, 0 for an empty slot.
+	private int[] values = new int[16];
+	private int numOfKeys;
+
+	PartialShuffle(int size, Random random) {
+		this.size = size;
+		this.random = random;
+	}
+
+	/**
+	 * Draw the next int. Position numOfDrawn is swapped with a random position at or after it, and its new value is
+	 * drawn; the value moved out only needs to be remembered at the random position.
+	 * @return an int from [0, size) which has not been drawn yet.
+	 * @throws IllegalStateException if every int has been drawn.
+	 */
+	int next() {
+		if (numOfDrawn == size) {
+			throw new IllegalStateException("All " + size + " values have been drawn.");
+		}
+		int position = numOfDrawn + random.nextInt(size - numOfDrawn);
+		int drawn = get(position);
+		put(position, get(numOfDrawn));
+		numOfDrawn++;
+		return drawn;
+	}
+
+	private int get(int position) {
+		int mask = keys.length - 1;
+		for (int slot = hash(position) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+			if (keys[slot] == position + 1) {
+				return values[slot];
+			}
+		}
+		return position; // never moved.
+	}
+
+	private void put(int position, int value) {
+		if (2 * (numOfKeys + 1) > keys.length) {
+			grow();
+		}
+		int mask = keys.length - 1;
+		int slot = hash(position) & mask;
+		while (keys[slot] != 0 && keys[slot] != position + 1) {
+			slot = (slot + 1) & mask;
+		}
+		if (keys[slot] == 0) {
+			keys[slot] = position + 1;
+			numOfKeys++;
+		}
+		values[slot] = value;
+	}
+
+	private void grow() {
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new int[oldKeys.length * 2];
+		values = new int[oldKeys.length * 2];
+		int mask = keys.length - 1;
+		for (int k = 0; k < oldKeys.length; k++) {
+			if (oldKeys[k] != 0) {
+				int slot = hash(oldKeys[k] - 1) & mask;
+				while (keys[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[k];
+				values[slot] = oldValues[k];
+			}
+		}
+	}
+
+	private static int hash(int position) {
+		int h = position * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
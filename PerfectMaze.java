@@ -1,5 +1,4 @@
 import java.util.List;
-import java.util.Random;
 
 public final class PerfectMaze extends GeneralMaze{
 	public PerfectMaze(int numOfRows,
@@ -9,6 +8,26 @@ public final class PerfectMaze extends GeneralMaze{
 		super(numOfRows, numOfCols, MazeHelper.calculateMaxRemainingWalls(numOfRows, numOfCols), startLocation, goalLocation);
 	}
 
+	public PerfectMaze(int numOfRows,
+	                int numOfCols,
+	                Location startLocation,
+	                Location goalLocation,
+	                long seed) {
+		super(numOfRows, numOfCols, MazeHelper.calculateMaxRemainingWalls(numOfRows, numOfCols), startLocation,
+				goalLocation, seed);
+	}
+
+	public PerfectMaze(int numOfRows,
+	                int numOfCols,
+	                Location startLocation,
+	                Location goalLocation,
+	                long seed,
+	                double goldCoinDensity,
+	                double thiefDensity) {
+		super(numOfRows, numOfCols, MazeHelper.calculateMaxRemainingWalls(numOfRows, numOfCols), startLocation,
+				goalLocation, seed, goldCoinDensity, thiefDensity);
+	}
+
 	@Override
 	protected boolean isNumOfRemainingWallsValid(int numOfRows, int numOfCols, int numOfRemainingWalls) {
 		return true;
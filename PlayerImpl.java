@@ -34,11 +34,7 @@ public final class PlayerImpl implements Player{
 
   @Override
   public void loseGold() {
-    this.gold -= MazeHelper.getXPercentageInInt(this.getGold(), Parameters.THIEF_PERCENT);
-    // Make sure the gold is non-negative.
-    if (this.gold < 0) {
-      this.gold = 0;
-    }
+    this.gold = MazeHelper.goldAfterThiefEncounter(this.gold);
   }
 
   @Override
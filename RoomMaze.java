@@ -9,6 +9,27 @@ public final class RoomMaze extends GeneralMaze {
 		super(numOfRows, numOfCols, numOfRemainingWalls, startLocation, goalLocation);
 	}
 
+	public RoomMaze(int numOfRows,
+	                    int numOfCols,
+	                    int numOfRemainingWalls,
+	                    Location startLocation,
+	                    Location goalLocation,
+	                    long seed) {
+		super(numOfRows, numOfCols, numOfRemainingWalls, startLocation, goalLocation, seed);
+	}
+
+	public RoomMaze(int numOfRows,
+	                    int numOfCols,
+	                    int numOfRemainingWalls,
+	                    Location startLocation,
+	                    Location goalLocation,
+	                    long seed,
+	                    double goldCoinDensity,
+	                    double thiefDensity) {
+		super(numOfRows, numOfCols, numOfRemainingWalls, startLocation, goalLocation, seed, goldCoinDensity,
+				thiefDensity);
+	}
+
 	@Override
 	protected boolean isNumOfRemainingWallsValid(int numOfRows, int numOfCols, int numOfRemainingWalls) {
 		return numOfRemainingWalls >= calculateBorderWalls(numOfRows, numOfCols)
@@ -0,0 +1,31 @@
+/**
+ * The {@code SolveStrategy} represents how a {@code GeneralMaze} finds the path from its starting point to its goal
+ * location. Every strategy returns the same path. The strategy is chosen for the whole program by the system property
+ * {@code maze.solver}, for example {@code -Dmaze.solver=dead_end_filling}.
+ */
+public enum SolveStrategy {
+	/**
+	 * An iterative DFS from the starting point, on one thread. The default.
+	 */
+	DFS,
+	/**
+	 * Dead-end filling swept in parallel over blocks of rows, see {@code DeadEndFiller}. Faster than the DFS on large
+	 * mazes when many cores are available.
+	 */
+	DEAD_END_FILLING;
+
+	/**
+	 * Find the strategy from the system property {@code maze.solver}.
+	 * @return the matched {@code SolveStrategy}, or {@code DFS} if the property is not set.
+	 * @throws IllegalArgumentException if the property names no strategy.
+	 */
+	public static SolveStrategy fromProperty() {
+		String name = System.getProperty("maze.solver", DFS.name());
+		for (SolveStrategy strategy : values()) {
+			if (strategy.name().equalsIgnoreCase(name)) {
+				return strategy;
+			}
+		}
+		throw new IllegalArgumentException("Unsupported solver " + name + ".\n");
+	}
+}
@@ -0,0 +1,133 @@
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code SpriteAtlas} class packs the six sprites of the maze into one image, pre-scaled to a cell size and in
+ * the pixel format of the screen, so drawing a sprite is a plain blit with no per-frame scaling or format conversion.
+ * Sprites are read from the classpath ({@code /img/...}), falling back to the {@code ./img} folder. Atlases are built
+ * asynchronously and cached for the whole process, one per cell size. A build which fails is dropped from the cache,
+ * so the next {@code load} of the same size tries again.
+ */
+public final class SpriteAtlas {
+	private static final Map<Integer, CompletableFuture<SpriteAtlas>> CACHE = new ConcurrentHashMap<>();
+
+	/**
+	 * The {@code Sprite} represents the images drawn in the maze. The order is the order in the atlas.
+	 */
+	public enum Sprite {
+		PLAYER("player.png"),
+		GOLD("gold.png"),
+		THIEF("thief.png"),
+		START("start.png"),
+		GOAL("goal.png"),
+		SOLVE("solve.png");
+
+		private final String fileName;
+
+		Sprite(String fileName) {
+			this.fileName = fileName;
+		}
+	}
+
+	private final int cellSize;
+	private final Image atlas;
+
+	private SpriteAtlas(int cellSize, Image atlas) {
+		this.cellSize = cellSize;
+		this.atlas = atlas;
+	}
+
+	/**
+	 * Get the atlas for a cell size, building it in the background on first use.
+	 * @param cellSize the size in pixels of one cell.
+	 * @return a future completed with the shared atlas, or completed exceptionally if the atlas cannot be built.
+	 */
+	public static CompletableFuture<SpriteAtlas> load(int cellSize) {
+		CompletableFuture<SpriteAtlas> future = CACHE.computeIfAbsent(cellSize,
+				size -> CompletableFuture.supplyAsync(() -> build(size)));
+		// Removed only once it is in the cache, so a build failing at once cannot be removed before it is added.
+		future.whenComplete((atlas, e) -> {
+			if (e != null) {
+				CACHE.remove(cellSize, future);
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * Draw one sprite with its top-left corner at (x, y).
+	 * @param g the graphic drawn on the canvas.
+	 * @param sprite the sprite to draw.
+	 * @param x the X coordinate on the canvas.
+	 * @param y the Y coordinate on the canvas.
+	 */
+	public void draw(Graphics g, Sprite sprite, int x, int y) {
+		int sx = sprite.ordinal() * cellSize;
+		g.drawImage(atlas, x, y, x + cellSize, y + cellSize, sx, 0, sx + cellSize, cellSize, null);
+	}
+
+	/**
+	 * Read every sprite and draw it, scaled, into its slot of a new atlas.
+	 * @param cellSize the size in pixels of one cell.
+	 * @return the built atlas. A sprite which cannot be read leaves its slot transparent.
+	 */
+	private static SpriteAtlas build(int cellSize) {
+		Sprite[] sprites = Sprite.values();
+		BufferedImage atlas = createCompatibleImage(cellSize * sprites.length, cellSize);
+		Graphics2D g = atlas.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		// The sprites are drawn for the default cell size, so they are scaled by the same ratio as the cell.
+		double scale = (double) cellSize / Parameters.CELL_SIZE;
+		for (Sprite sprite : sprites) {
+			BufferedImage image = read(sprite.fileName);
+			if (image == null) {
+				System.out.println("File " + sprite.fileName + " doesn't exist or is not an image");
+				continue;
+			}
+			int width = Math.min(cellSize, (int) Math.round(image.getWidth() * scale));
+			int height = Math.min(cellSize, (int) Math.round(image.getHeight() * scale));
+			g.drawImage(image, sprite.ordinal() * cellSize, 0, width, height, null);
+		}
+		g.dispose();
+		return new SpriteAtlas(cellSize, atlas);
+	}
+
+	/**
+	 * Read one sprite from the classpath, or from the {@code ./img} folder if it is not on the classpath.
+	 * @param fileName the file name of the sprite.
+	 * @return the image, or null if it cannot be read.
+	 */
+	private static BufferedImage read(String fileName) {
+		try (InputStream in = SpriteAtlas.class.getResourceAsStream("/img/" + fileName)) {
+			if (in != null) {
+				return ImageIO.read(in);
+			}
+			File file = new File("./img/" + fileName);
+			return file.exists() ? ImageIO.read(file) : null;
+		} catch (IOException e) {
+			System.out.println("File " + fileName + " can not be read: " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Create a translucent image in the pixel format of the screen, or a plain ARGB image when there is no screen.
+	 * @param width the width in pixels.
+	 * @param height the height in pixels.
+	 * @return a new empty image.
+	 */
+	private static BufferedImage createCompatibleImage(int width, int height) {
+		if (GraphicsEnvironment.isHeadless()) {
+			return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+		}
+		return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+				.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+	}
+}
@@ -1,8 +1,5 @@
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
-import java.io.File;
-import java.io.IOException;
 import java.util.List;
 
 public class SwingPanel extends JPanel {
@@ -17,35 +14,39 @@ public class SwingPanel extends JPanel {
 	private List<Location> solveLocation;
 	private String nextPossibleMove;
 	private String playerStatus;
-	private Image startLocationImage;
-	private Image goalLocationImage;
-	private Image playerImage;
-	private Image goldImage;
-	private Image thiefImage;
-	private Image solveLocationImage;
+	private SpriteAtlas atlas; // null until the sprites are loaded.
+	private boolean isAtlasLoading = false; // set by the constructor, then only used on the event dispatch thread.
 	private boolean initialized = false;
 
 	/**
-	 * Constructs a {@code SwingPanel} object with the loaded image. This panel is set to receive focus.
+	 * Constructs a {@code SwingPanel} object. The sprites are loaded in the background; until they are ready, only the
+	 * walls and strings are drawn. This panel is set to receive focus.
 	 * @param frameHeight the height of the frame. Used to define the location of painted string.
 	 */
 	public SwingPanel(int frameHeight) {
 		this.frameHeight = frameHeight;
-		// load images
-		try {
-			playerImage = ImageIO.read(new File("./img/player.png"));
-			goldImage = ImageIO.read(new File("./img/gold.png"));
-			thiefImage = ImageIO.read(new File("./img/thief.png"));
-			startLocationImage = ImageIO.read(new File("./img/start.png"));
-			goalLocationImage = ImageIO.read(new File("./img/goal.png"));
-			solveLocationImage = ImageIO.read(new File("./img/solve.png"));
-		} catch (IOException e) {
-			System.out.println("File doesn't exist");
-		}
+		loadAtlas();
 		// Make this panel receive the focus.
 		this.setFocusable(true);
 	}
 
+	/**
+	 * Load the sprites in the background, then repaint. A failed load is reported and tried again on the next
+	 * repaint.
+	 */
+	private void loadAtlas() {
+		isAtlasLoading = true;
+		SpriteAtlas.load(Parameters.CELL_SIZE).whenComplete((loaded, e) -> SwingUtilities.invokeLater(() -> {
+			isAtlasLoading = false;
+			if (e != null) {
+				System.out.println("Sprites can not be loaded: " + e.getMessage());
+				return;
+			}
+			this.atlas = loaded;
+			repaint();
+		}));
+	}
+
 	/**
 	 * Paint the maze on the canvas using JPanel.
 	 * @param isGameOver true if the game is over, otherwise false.
@@ -83,6 +84,26 @@ public class SwingPanel extends JPanel {
 		if (!initialized) {
 			return;
 		}
+		if (atlas == null && !isAtlasLoading) {
+			loadAtlas();
+		}
+		MazeEvents.Frame event = new MazeEvents.Frame();
+		event.begin();
+		long start = MazeMetrics.start();
+		drawFrame(g);
+		MazeMetrics.FRAME.stop(start);
+		event.end();
+		if (event.shouldCommit()) {
+			event.numOfWalls = wallsLocation.size();
+			event.commit();
+		}
+	}
+
+	/**
+	 * Draw the maze and the status strings of one frame.
+	 * @param g the graphic drawn on the canvas.
+	 */
+	private void drawFrame(Graphics g) {
 		if (isGameOver) {
 			// draw game over string
 			drawMaze(g);
@@ -107,22 +128,32 @@ public class SwingPanel extends JPanel {
 			g.drawLine(LocationJToCoordinateX(startPoint.getJ()), LocationIToCoordinateY(startPoint.getI()),
 					LocationJToCoordinateX(endPoint.getJ()), LocationIToCoordinateY(endPoint.getI()));
 		}
+		if (atlas == null) {
+			return;
+		}
 		for(Location l: solveLocation) {
-			g.drawImage(solveLocationImage, LocationJToCoordinateX(l.getJ()), LocationIToCoordinateY(l.getI()), this);
+			drawSprite(g, SpriteAtlas.Sprite.SOLVE, l);
 		}
 		for(Location l: goldCoinLocation) {
-			g.drawImage(goldImage, LocationJToCoordinateX(l.getJ()), LocationIToCoordinateY(l.getI()), this);
+			drawSprite(g, SpriteAtlas.Sprite.GOLD, l);
 		}
 		for(Location l: thiefLocation) {
-			g.drawImage(thiefImage, LocationJToCoordinateX(l.getJ()), LocationIToCoordinateY(l.getI()), this);
+			drawSprite(g, SpriteAtlas.Sprite.THIEF, l);
 		}
 
-		g.drawImage(startLocationImage, LocationJToCoordinateX(startLocation.getJ()),
-				LocationIToCoordinateY(startLocation.getI()),this);
-		g.drawImage(goalLocationImage, LocationJToCoordinateX(goalLocation.getJ()),
-				LocationIToCoordinateY(goalLocation.getI()), this);
-		g.drawImage(playerImage, LocationJToCoordinateX(playerLocation.getJ()),
-				LocationIToCoordinateY(playerLocation.getI()),this);
+		drawSprite(g, SpriteAtlas.Sprite.START, startLocation);
+		drawSprite(g, SpriteAtlas.Sprite.GOAL, goalLocation);
+		drawSprite(g, SpriteAtlas.Sprite.PLAYER, playerLocation);
+	}
+
+	/**
+	 * Draw one sprite in the cell at {@code Location} l.
+	 * @param g the graphic drawn on the canvas.
+	 * @param sprite the sprite to draw.
+	 * @param l the {@code Location} of the cell.
+	 */
+	private void drawSprite(Graphics g, SpriteAtlas.Sprite sprite, Location l) {
+		atlas.draw(g, sprite, LocationJToCoordinateX(l.getJ()), LocationIToCoordinateY(l.getI()));
 	}
 
 	/**
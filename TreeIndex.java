@@ -0,0 +1,156 @@
+/**
+ * The {@code TreeIndex} class answers path queries on a perfect maze. The cells and openings of a perfect maze form a
+ * spanning tree, so the path between two cells is unique and goes through their lowest common ancestor. The tree is
+ * rooted at the starting point; each cell keeps its parent, its depth and one jump pointer to an ancestor. The jump
+ * pointers follow the skew-binary scheme, which finds an ancestor at any depth in O(log n) steps with a single int per
+ * cell instead of a full binary lifting table. The index is immutable and can be shared by any number of threads.
+ */
+public final class TreeIndex {
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final int rootID;
+	private final int[] parent;
+	private final int[] depth;
+	private final int[] jump;
+
+	/**
+	 * Constructs a {@code TreeIndex} object, rooted at the starting point of the layout.
+	 *
+	 * @param layout the layout of a perfect maze.
+	 * @throws IllegalArgumentException if the layout is not a spanning tree: it has a loop, or a cell cannot be
+	 * reached.
+	 */
+	public TreeIndex(MazeLayout layout) {
+		int numOfCells = layout.getNumOfCells();
+		this.rootID = layout.getStartCellID();
+		this.parent = new int[numOfCells];
+		this.depth = new int[numOfCells];
+		this.jump = new int[numOfCells];
+		boolean[] seen = new boolean[numOfCells];
+		int[] queue = new int[numOfCells];
+		int head = 0;
+		int tail = 0;
+		parent[rootID] = rootID;
+		jump[rootID] = rootID;
+		seen[rootID] = true;
+		queue[tail++] = rootID;
+		// BFS order visits every parent before its children, so the jump of the parent is ready.
+		while (head < tail) {
+			int ID = queue[head++];
+			for (Direction d : DIRECTIONS) {
+				int nextID = layout.nextCellID(ID, d);
+				if (nextID < 0 || nextID == parent[ID] && ID != rootID) {
+					continue;
+				}
+				if (seen[nextID]) {
+					throw new IllegalArgumentException("The maze has a loop through cell " + nextID +
+							", it is not a perfect maze.\n");
+				}
+				seen[nextID] = true;
+				parent[nextID] = ID;
+				depth[nextID] = depth[ID] + 1;
+				int up = jump[ID];
+				jump[nextID] = depth[ID] - depth[up] == depth[up] - depth[jump[up]] ? jump[up] : ID;
+				queue[tail++] = nextID;
+			}
+		}
+		if (tail != numOfCells) {
+			throw new IllegalArgumentException((numOfCells - tail) + " cells cannot be reached, it is not a perfect " +
+					"maze.\n");
+		}
+	}
+
+	/**
+	 * Find the lowest common ancestor of two cells, the cell where their paths to the starting point meet.
+	 * @param ID the ID of a cell.
+	 * @param otherID the ID of another cell.
+	 * @return the ID of the lowest common ancestor.
+	 */
+	public int lowestCommonAncestor(int ID, int otherID) {
+		if (depth[ID] > depth[otherID]) {
+			ID = ancestorAtDepth(ID, depth[otherID]);
+		} else {
+			otherID = ancestorAtDepth(otherID, depth[ID]);
+		}
+		// At the same depth the jumps of both cells land at the same depth too.
+		while (ID != otherID) {
+			if (jump[ID] != jump[otherID]) {
+				ID = jump[ID];
+				otherID = jump[otherID];
+			} else {
+				ID = parent[ID];
+				otherID = parent[otherID];
+			}
+		}
+		return ID;
+	}
+
+	/**
+	 * Get the number of steps of the path between two cells, in O(log n).
+	 * @param ID the ID of a cell.
+	 * @param otherID the ID of another cell.
+	 * @return the distance between the cells.
+	 */
+	public int distance(int ID, int otherID) {
+		return depth[ID] + depth[otherID] - 2 * depth[lowestCommonAncestor(ID, otherID)];
+	}
+
+	/**
+	 * Get the path between two cells, in O(log n + path length).
+	 * @param startID the ID of the starting cell.
+	 * @param goalID the ID of the goal cell.
+	 * @return the IDs of the cells of the path, from the goal back to the start like {@code getSolveCellIDs}.
+	 */
+	public int[] findPath(int startID, int goalID) {
+		int ancestor = lowestCommonAncestor(startID, goalID);
+		int[] path = new int[depth[startID] + depth[goalID] - 2 * depth[ancestor] + 1];
+		int k = 0;
+		for (int ID = goalID; ID != ancestor; ID = parent[ID]) {
+			path[k++] = ID;
+		}
+		path[k] = ancestor;
+		k = path.length - 1;
+		for (int ID = startID; ID != ancestor; ID = parent[ID]) {
+			path[k--] = ID;
+		}
+		return path;
+	}
+
+	/**
+	 * Find the ancestor of a cell at the given depth.
+	 * @param ID the ID of a cell.
+	 * @param targetDepth a depth not greater than the depth of the cell.
+	 * @return the ID of the ancestor.
+	 */
+	public int ancestorAtDepth(int ID, int targetDepth) {
+		if (targetDepth < 0 || targetDepth > depth[ID]) {
+			throw new IllegalArgumentException("Depth " + targetDepth + " is out of range!\n");
+		}
+		while (depth[ID] > targetDepth) {
+			ID = depth[jump[ID]] >= targetDepth ? jump[ID] : parent[ID];
+		}
+		return ID;
+	}
+
+	/**
+	 * Get the number of steps from the starting point to a cell.
+	 * @param ID the ID of a cell.
+	 * @return the depth of the cell.
+	 */
+	public int getDepth(int ID) {
+		return this.depth[ID];
+	}
+
+	/**
+	 * Get the next cell on the path from a cell to the starting point.
+	 * @param ID the ID of a cell.
+	 * @return the ID of the parent, or the ID itself for the starting point.
+	 */
+	public int getParent(int ID) {
+		return this.parent[ID];
+	}
+
+	public int getRootID() {
+		return this.rootID;
+	}
+}
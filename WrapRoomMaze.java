@@ -9,6 +9,27 @@ public final class WrapRoomMaze extends GeneralMaze {
 		super(numOfRows, numOfCols, numOfRemainingWalls, startLocation, goalLocation);
 	}
 
+	public WrapRoomMaze(int numOfRows,
+	                     int numOfCols,
+	                     int numOfRemainingWalls,
+	                     Location startLocation,
+	                     Location goalLocation,
+	                     long seed) {
+		super(numOfRows, numOfCols, numOfRemainingWalls, startLocation, goalLocation, seed);
+	}
+
+	public WrapRoomMaze(int numOfRows,
+	                     int numOfCols,
+	                     int numOfRemainingWalls,
+	                     Location startLocation,
+	                     Location goalLocation,
+	                     long seed,
+	                     double goldCoinDensity,
+	                     double thiefDensity) {
+		super(numOfRows, numOfCols, numOfRemainingWalls, startLocation, goalLocation, seed, goldCoinDensity,
+				thiefDensity);
+	}
+
 	@Override
 	protected boolean isNumOfRemainingWallsValid(int numOfRows, int numOfCols, int numOfRemainingWalls) {
 		return numOfRemainingWalls >= 0 &&
@@ -60,26 +81,20 @@ public final class WrapRoomMaze extends GeneralMaze {
 	}
 
 	@Override
-	protected int[] moveInSolveMaze(int i, int j, Direction d){
-		if (d == Direction.NORTH && i == 0){
-			return moveToOppositeCell(this.numOfRows, i, j, Direction.SOUTH);
-		} else if (d == Direction.SOUTH && i == numOfRows - 1) {
-			return moveToOppositeCell(this.numOfRows, i, j, Direction.NORTH);
-		} else if (d == Direction.WEST && j == 0){
-			return moveToOppositeCell(this.numOfCols, i, j, Direction.EAST);
-		} else if (d == Direction.EAST && j == numOfCols - 1) {
-			return moveToOppositeCell(this.numOfCols, i, j, Direction.WEST);
-		} else {
-			return moveToNextCell(i, j, d);
-		}
+	protected boolean isWrap() {
+		return true;
 	}
 
-	private int[] moveToOppositeCell(int times, int i, int j,  Direction d) {
-		int[] res = {i, j};
-		for(int k = 0; k < times - 1; k++) {
-			res = moveToNextCell(res[0], res[1], d);
-		}
-		return res;
+	@Override
+	protected int nextCellID(int ID, Direction d) {
+		int i = MazeHelper.IDToI(ID, numOfCols);
+		int j = MazeHelper.IDToJ(ID, numOfCols);
+		return switch (d) {
+			case NORTH -> MazeHelper.idxToID(i == 0 ? numOfRows - 1 : i - 1, j, numOfCols);
+			case SOUTH -> MazeHelper.idxToID(i == numOfRows - 1 ? 0 : i + 1, j, numOfCols);
+			case EAST -> MazeHelper.idxToID(i, j == numOfCols - 1 ? 0 : j + 1, numOfCols);
+			case WEST -> MazeHelper.idxToID(i, j == 0 ? numOfCols - 1 : j - 1, numOfCols);
+		};
 	}
 
 	/**
@@ -112,10 +127,10 @@ public final class WrapRoomMaze extends GeneralMaze {
 	 * @param grid a 2D-Array, maze grid generated in progress.
 	 */
 	private void tearDownBorderWall(int sourceID, int destID, List<List<Cell>> grid) {
-		int sourceI = MazeHelper.IDToLocation(sourceID, numOfCols).getI();
-		int sourceJ = MazeHelper.IDToLocation(sourceID, numOfCols).getJ();
-		int destI = MazeHelper.IDToLocation(destID, numOfCols).getI();
-		int destJ = MazeHelper.IDToLocation(destID, numOfCols).getJ();
+		int sourceI = MazeHelper.IDToI(sourceID, numOfCols);
+		int sourceJ = MazeHelper.IDToJ(sourceID, numOfCols);
+		int destI = MazeHelper.IDToI(destID, numOfCols);
+		int destJ = MazeHelper.IDToJ(destID, numOfCols);
 		if (sourceI == destI) {
 			grid.get(sourceI).get(sourceJ).tearDownWall(Direction.WEST);
 			grid.get(destI).get(destJ).tearDownWall(Direction.EAST);
@@ -123,6 +138,7 @@ public final class WrapRoomMaze extends GeneralMaze {
 			grid.get(sourceI).get(sourceJ).tearDownWall(Direction.NORTH);
 			grid.get(destI).get(destJ).tearDownWall(Direction.SOUTH);
 		}
+		decreaseWallCount(2); // The two border walls face each other on opposite sides of the grid.
 	}
 
 	/**